@@ -0,0 +1,164 @@
+package com.anchorer.lib.collection;
+
+import com.anchorer.lib.utils.EncodeUtils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Collection: BloomFilter
+ * 字符串的布隆过滤器，用于以很小的体积导出或传输一个集合的“指纹”（例如已安装应用的包名）。
+ * mightContain返回false时元素一定不在集合中，返回true时有一定的误判概率。
+ * 哈希为字符串UTF-16LE编码的xxHash64，再用双重哈希（h1 + i * h2）得到各个位，服务端可以按同样的方式实现。
+ *
+ * Bloom filter over strings, for exporting or shipping a compact fingerprint of a set (such as the
+ * installed package names). mightContain() returning false means definitely absent; true may be a
+ * false positive. Bits come from double hashing (h1 + i * h2) of the xxHash64 of the string's UTF-16LE
+ * encoding, so a server can reproduce them.
+ */
+public class BloomFilter {
+    //序列化格式的文件头"BLMF"
+    private static final int MAGIC = 0x424C4D46;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    //位数上限：int范围内最大的64的倍数
+    public static final int MAX_BITS = Integer.MAX_VALUE & ~63;
+
+    private final long[] bits;
+    private final int numBits;
+    private final int numHashes;
+
+    /**
+     * 根据预计的元素个数和误判率创建
+     * Create a filter sized for the expected number of elements and false positive rate.
+     *
+     * @param expectedInsertions    预计的元素个数
+     * @param fpp                   误判率，(0, 1)之间
+     *                              false positive probability, in (0, 1)
+     * @throws IllegalArgumentException 所需位数超过{@link #MAX_BITS}
+     *                                  if the required bit count exceeds {@link #MAX_BITS}
+     */
+    public static BloomFilter create(int expectedInsertions, double fpp) {
+        if(fpp <= 0 || fpp >= 1)
+            throw new IllegalArgumentException("BloomFilter -- fpp must be in (0, 1): " + fpp);
+        int n = Math.max(expectedInsertions, 1);
+        double ln2 = Math.log(2);
+        //先以double比较，避免极小的fpp转换为long时截断
+        double optimalBits = Math.ceil(-n * Math.log(fpp) / (ln2 * ln2));
+        if(optimalBits > MAX_BITS)
+            throw new IllegalArgumentException("BloomFilter -- too many bits: " + optimalBits);
+        //按64位对齐，不浪费最后一个long
+        int bitCount = Math.max(64, ((int) optimalBits + 63) & ~63);
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+        return new BloomFilter(bitCount, hashCount);
+    }
+
+    /**
+     * 构造方法
+     * @param numBits   位数，向上取整为64的倍数，不超过{@link #MAX_BITS}
+     * @param numHashes 每个元素对应的位数
+     */
+    public BloomFilter(int numBits, int numHashes) {
+        if(numBits <= 0 || numBits > MAX_BITS || numHashes <= 0)
+            throw new IllegalArgumentException("BloomFilter -- numBits: " + numBits + ", numHashes: " + numHashes);
+        this.bits = new long[(numBits + 63) >>> 6];
+        this.numBits = bits.length << 6;
+        this.numHashes = numHashes;
+    }
+
+    private BloomFilter(long[] bits, int numHashes) {
+        this.bits = bits;
+        this.numBits = bits.length << 6;
+        this.numHashes = numHashes;
+    }
+
+    public int getBitCount() {
+        return numBits;
+    }
+
+    public int getHashCount() {
+        return numHashes;
+    }
+
+    /**
+     * 添加元素
+     * @return  是否有位发生变化，为false时元素可能已经在集合中
+     *          whether any bit changed; false means the element may already be present
+     */
+    public boolean put(CharSequence value) {
+        long hash = EncodeUtils.xxHash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean changed = false;
+        for(int i = 1; i <= numHashes; i++) {
+            int index = bitIndex(h1 + i * h2);
+            long mask = 1L << index;
+            if((bits[index >>> 6] & mask) == 0) {
+                bits[index >>> 6] |= mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 判断元素是否可能在集合中
+     * @return  false表示一定不在集合中
+     */
+    public boolean mightContain(CharSequence value) {
+        long hash = EncodeUtils.xxHash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for(int i = 1; i <= numHashes; i++) {
+            int index = bitIndex(h1 + i * h2);
+            if((bits[index >>> 6] & (1L << index)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 按当前置位的比例估算误判率
+     * Estimate the false positive rate from the fraction of set bits.
+     */
+    public double expectedFpp() {
+        int setBits = 0;
+        for(long word : bits)
+            setBits += Long.bitCount(word);
+        return Math.pow((double) setBits / numBits, numHashes);
+    }
+
+    /**
+     * 序列化：文件头"BLMF"、版本、位数、哈希个数，之后为各个long（大端序）
+     * Serialize: magic "BLMF", version, bit count and hash count, then the words (big-endian).
+     */
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bits.length * 8);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(numBits).putInt(numHashes);
+        buffer.asLongBuffer().put(bits);
+        return buffer.array();
+    }
+
+    /**
+     * 反序列化{@link #toByteArray()}的结果
+     * @throws IllegalArgumentException 数据格式不正确
+     */
+    public static BloomFilter fromByteArray(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if(data.length < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            throw new IllegalArgumentException("BloomFilter -- not a serialized filter");
+        int numBits = buffer.getInt();
+        int numHashes = buffer.getInt();
+        if(numBits <= 0 || (numBits & 63) != 0 || numHashes <= 0 || data.length - HEADER_SIZE != numBits >>> 3)
+            throw new IllegalArgumentException("BloomFilter -- corrupted header, numBits: " + numBits
+                    + ", numHashes: " + numHashes);
+        long[] bits = new long[numBits >>> 6];
+        buffer.asLongBuffer().get(bits);
+        return new BloomFilter(bits, numHashes);
+    }
+
+    private int bitIndex(int combined) {
+        if(combined < 0)
+            combined = ~combined;
+        return combined % numBits;
+    }
+}
@@ -0,0 +1,120 @@
+package com.anchorer.lib.collection;
+
+import java.util.Arrays;
+
+/**
+ * Collection: IntArrayList
+ * 存储int的动态数组，不装箱。
+ * Growable array of ints, without boxing.
+ */
+public class IntArrayList {
+    private int[] elements;
+    private int size;
+
+    public IntArrayList() {
+        this(10);
+    }
+
+    public IntArrayList(int initialCapacity) {
+        elements = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public int set(int index, int value) {
+        checkIndex(index);
+        int old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void add(int value) {
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+    }
+
+    public void add(int index, int value) {
+        if(index < 0 || index > size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+    }
+
+    public void addAll(int[] values, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(values, offset, elements, size, length);
+        size += length;
+    }
+
+    /**
+     * 删除指定位置的元素
+     * Remove the element at an index.
+     *
+     * @return  The removed element
+     */
+    public int removeAt(int index) {
+        checkIndex(index);
+        int old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    public int indexOf(int value) {
+        for(int i = 0; i < size; i++) {
+            if(elements[i] == value)
+                return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void sort() {
+        Arrays.sort(elements, 0, size);
+    }
+
+    public void ensureCapacity(int capacity) {
+        if(capacity > elements.length)
+            elements = Arrays.copyOf(elements, Math.max(capacity, elements.length + (elements.length >> 1) + 1));
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(size * 4 + 2).append('[');
+        for(int i = 0; i < size; i++) {
+            if(i > 0)
+                builder.append(", ");
+            builder.append(elements[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
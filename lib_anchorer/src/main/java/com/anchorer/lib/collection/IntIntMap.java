@@ -0,0 +1,137 @@
+package com.anchorer.lib.collection;
+
+/**
+ * Collection: IntIntMap
+ * int到int的哈希表，不装箱。
+ * 使用开放寻址（线性探测）存储，删除时回移后续元素，不留墓碑；遍历使用槽位游标，不产生对象：
+ * <pre>
+ * for(int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1)) {
+ *     map.keyAt(slot); map.valueAt(slot);
+ * }
+ * </pre>
+ * Hash map from int to int, without boxing.
+ * Open addressing with linear probing and backward-shift deletion, no tombstones. Iterate with the
+ * allocation-free slot cursor shown above.
+ */
+public class IntIntMap extends OpenHashTable {
+    //由父类构造方法通过allocateEntries分配，不能有初始值
+    private int[] keys;
+    private int[] values;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    public IntIntMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * 获取键对应的值，不存在时返回defaultValue
+     * Get the value of a key, or the default value if absent.
+     */
+    public int get(int key, int defaultValue) {
+        int slot = findSlot(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * 存入键值对
+     * Put a key-value pair.
+     *
+     * @return  The previous value, or 0 if absent
+     */
+    public int put(int key, int value) {
+        int slot = slotOf(key);
+        while(used[slot]) {
+            if(keys[slot] == key) {
+                int old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        afterInsert(slot);
+        return 0;
+    }
+
+    /**
+     * 删除键
+     * Remove a key.
+     *
+     * @return  The removed value, or 0 if absent
+     */
+    public int remove(int key) {
+        int slot = findSlot(key);
+        if(slot < 0)
+            return 0;
+        int old = values[slot];
+        removeSlot(slot);
+        return old;
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * 获取所有键
+     * Get all keys, in slot order.
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int index = 0;
+        for(int i = 0; i < used.length; i++) {
+            if(used[i])
+                result[index++] = keys[i];
+        }
+        return result;
+    }
+
+    private int findSlot(int key) {
+        int slot = slotOf(key);
+        while(used[slot]) {
+            if(keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    int homeSlot(Object keys, int index) {
+        return slotOf(((int[]) keys)[index]);
+    }
+
+    @Override
+    void copyEntry(Object keys, Object values, int from, int to) {
+        this.keys[to] = ((int[]) keys)[from];
+        this.values[to] = ((int[]) values)[from];
+    }
+
+    @Override
+    Object keyArray() {
+        return keys;
+    }
+
+    @Override
+    Object valueArray() {
+        return values;
+    }
+
+    @Override
+    void allocateEntries(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+}
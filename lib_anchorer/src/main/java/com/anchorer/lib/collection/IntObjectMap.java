@@ -0,0 +1,143 @@
+package com.anchorer.lib.collection;
+
+/**
+ * Collection: IntObjectMap
+ * int到对象的哈希表，键不装箱。
+ * 使用开放寻址（线性探测）存储，删除时回移后续元素，不留墓碑；遍历使用槽位游标，不产生对象：
+ * <pre>
+ * for(int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1)) {
+ *     map.keyAt(slot); map.valueAt(slot);
+ * }
+ * </pre>
+ * Hash map from int to objects, keys are not boxed.
+ * Open addressing with linear probing and backward-shift deletion, no tombstones. Iterate with the
+ * allocation-free slot cursor shown above.
+ */
+@SuppressWarnings("unchecked")
+public class IntObjectMap<V> extends OpenHashTable {
+    //由父类构造方法通过allocateEntries分配，不能有初始值
+    private int[] keys;
+    private Object[] values;
+
+    public IntObjectMap() {
+        this(16);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * 获取键对应的值，不存在时返回null
+     * Get the value of a key, or null if absent.
+     */
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    /**
+     * 存入键值对
+     * Put a key-value pair.
+     *
+     * @return  The previous value, or null if absent
+     */
+    public V put(int key, V value) {
+        int slot = slotOf(key);
+        while(used[slot]) {
+            if(keys[slot] == key) {
+                V old = (V) values[slot];
+                values[slot] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        afterInsert(slot);
+        return null;
+    }
+
+    /**
+     * 删除键
+     * Remove a key.
+     *
+     * @return  The removed value, or null if absent
+     */
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if(slot < 0)
+            return null;
+        V old = (V) values[slot];
+        removeSlot(slot);
+        return old;
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     * 获取所有键
+     * Get all keys, in slot order.
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int index = 0;
+        for(int i = 0; i < used.length; i++) {
+            if(used[i])
+                result[index++] = keys[i];
+        }
+        return result;
+    }
+
+    private int findSlot(int key) {
+        int slot = slotOf(key);
+        while(used[slot]) {
+            if(keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    int homeSlot(Object keys, int index) {
+        return slotOf(((int[]) keys)[index]);
+    }
+
+    @Override
+    void copyEntry(Object keys, Object values, int from, int to) {
+        this.keys[to] = ((int[]) keys)[from];
+        this.values[to] = ((Object[]) values)[from];
+    }
+
+    @Override
+    Object keyArray() {
+        return keys;
+    }
+
+    @Override
+    Object valueArray() {
+        return values;
+    }
+
+    @Override
+    void allocateEntries(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    @Override
+    void releaseEntry(int slot) {
+        values[slot] = null;
+    }
+}
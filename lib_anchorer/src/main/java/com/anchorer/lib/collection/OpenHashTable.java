@@ -0,0 +1,155 @@
+package com.anchorer.lib.collection;
+
+import java.util.Arrays;
+
+/**
+ * Collection: OpenHashTable
+ * 基本类型键哈希表的公共部分：开放寻址（线性探测）、删除时回移后续元素（不留墓碑）、扩容及槽位游标。
+ * 子类只负责保存键值数组和比较键。
+ * 槽位由Fibonacci散列计算：键乘以黄金分割常数后取高位，只在高位不同的键也能均匀分布。
+ *
+ * Common part of the primitive-keyed hash maps: linear probing, backward-shift deletion without
+ * tombstones, resizing and the slot cursor. Subclasses only store the key and value arrays and compare
+ * keys. Home slots use Fibonacci hashing: the key is multiplied by the golden ratio constant and the
+ * high bits are taken, so keys differing only in their high bits still spread.
+ */
+abstract class OpenHashTable {
+    static final float LOAD_FACTOR = 0.75f;
+
+    boolean[] used;
+    int size;
+    int mask;
+    //槽位数为2的bits次方
+    int bits;
+    int threshold;
+
+    OpenHashTable(int expectedSize) {
+        int capacity = 4;
+        while(capacity * LOAD_FACTOR < expectedSize)
+            capacity <<= 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        for(int slot = 0; slot < used.length; slot++) {
+            releaseEntry(slot);
+        }
+        size = 0;
+    }
+
+    /**
+     * 从指定槽位开始查找下一个已使用的槽位。遍历期间不要修改表。
+     * Find the next used slot at or after a slot. Do not modify the map while iterating.
+     *
+     * @return  Slot index, or -1 if there is none
+     */
+    public int nextSlot(int slot) {
+        for(int i = slot; i < used.length; i++) {
+            if(used[i])
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 键数组中第index个键的初始槽位，按当前容量计算
+     * Home slot, at the current capacity, of the key at an index of a key array.
+     */
+    abstract int homeSlot(Object keys, int index);
+
+    /**
+     * 将给定数组中from处的键值复制到当前数组的to处
+     * Copy the entry at from in the given arrays to to in the current arrays.
+     */
+    abstract void copyEntry(Object keys, Object values, int from, int to);
+
+    abstract Object keyArray();
+
+    abstract Object valueArray();
+
+    /**
+     * 分配键值数组
+     */
+    abstract void allocateEntries(int capacity);
+
+    /**
+     * 槽位不再使用时释放其中的引用
+     * Release references held by a slot which is no longer used.
+     */
+    void releaseEntry(int slot) {
+    }
+
+    final int slotOf(int key) {
+        return (key * 0x9E3779B9) >>> (32 - bits);
+    }
+
+    final int slotOf(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+    }
+
+    /**
+     * 在空槽位slot中登记新元素，必要时扩容
+     * Mark an empty slot as used by a new entry, resizing if needed.
+     * The entry must already be stored at slot.
+     */
+    final void afterInsert(int slot) {
+        used[slot] = true;
+        if(++size > threshold)
+            rehash(used.length << 1);
+    }
+
+    /**
+     * 删除槽位中的元素，回移后续探测链上的元素，保持探测链连续
+     * Remove the entry at a slot and shift later entries of the probe chain back.
+     */
+    final void removeSlot(int slot) {
+        Object keys = keyArray();
+        Object values = valueArray();
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while(used[next]) {
+            int home = homeSlot(keys, next);
+            if(((next - home) & mask) >= ((next - gap) & mask)) {
+                copyEntry(keys, values, next, gap);
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        releaseEntry(gap);
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        bits = Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * LOAD_FACTOR);
+        allocateEntries(capacity);
+    }
+
+    private void rehash(int capacity) {
+        boolean[] oldUsed = used;
+        Object oldKeys = keyArray();
+        Object oldValues = valueArray();
+        allocate(capacity);
+        for(int i = 0; i < oldUsed.length; i++) {
+            if(!oldUsed[i])
+                continue;
+            int slot = homeSlot(oldKeys, i);
+            while(used[slot])
+                slot = (slot + 1) & mask;
+            used[slot] = true;
+            copyEntry(oldKeys, oldValues, i, slot);
+        }
+    }
+}
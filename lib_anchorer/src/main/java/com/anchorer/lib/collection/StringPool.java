@@ -0,0 +1,117 @@
+package com.anchorer.lib.collection;
+
+import java.util.Arrays;
+
+/**
+ * Collection: StringPool
+ * 字符串池：相同内容的字符串只保存一份，并分配从0开始的连续编号，可用int编号代替字符串引用存储。
+ * 使用开放寻址（线性探测）的哈希表按内容查找编号，只支持添加，编号在字符串池的整个生命周期内有效。
+ * String pool: equal strings are stored once and given consecutive ids from 0, so columns can store
+ * int ids instead of references. Ids are looked up by content in an open-addressing hash table.
+ * Append-only: an id stays valid for the life of the pool, so tables sharing it may cache data
+ * keyed by its size.
+ */
+public class StringPool {
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private String[] values;
+    private int size;
+    //槽位中保存编号 + 1，0表示空槽位
+    private int[] table;
+    private int mask;
+    private int threshold;
+
+    public StringPool() {
+        this(16);
+    }
+
+    public StringPool(int expectedSize) {
+        int capacity = 4;
+        while(capacity * LOAD_FACTOR < expectedSize)
+            capacity <<= 1;
+        values = new String[Math.max(expectedSize, 4)];
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取字符串的编号，不存在时加入字符串池
+     * Get the id of a string, adding it to the pool if absent.
+     *
+     * @return  The id, or -1 for null
+     */
+    public int intern(String value) {
+        if(value == null)
+            return -1;
+        int slot = hash(value);
+        int entry;
+        while((entry = table[slot]) != 0) {
+            if(values[entry - 1].equals(value))
+                return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        if(size == values.length)
+            values = Arrays.copyOf(values, size << 1);
+        int id = size++;
+        values[id] = value;
+        table[slot] = id + 1;
+        if(size > threshold)
+            rehash(table.length << 1);
+        return id;
+    }
+
+    /**
+     * 查找字符串的编号，不加入字符串池
+     * Look up the id of a string without adding it.
+     *
+     * @return  The id, or -1 if absent or null
+     */
+    public int indexOf(String value) {
+        if(value == null)
+            return -1;
+        int slot = hash(value);
+        int entry;
+        while((entry = table[slot]) != 0) {
+            if(values[entry - 1].equals(value))
+                return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 根据编号获取字符串，编号为-1时返回null
+     * Get the string of an id, or null for -1.
+     */
+    public String get(int id) {
+        if(id == -1)
+            return null;
+        if(id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("id: " + id + ", size: " + size);
+        return values[id];
+    }
+
+    private int hash(String value) {
+        int h = value.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        allocate(capacity);
+        for(int id = 0; id < size; id++) {
+            int slot = hash(values[id]);
+            while(table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = id + 1;
+        }
+    }
+}
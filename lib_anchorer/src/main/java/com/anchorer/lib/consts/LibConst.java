@@ -21,6 +21,13 @@ public class LibConst {
     public static final String ENCODING_UTF_8 = "UTF-8";
     public static final String ENCODING_UTF_16 = "UTF-16";
 
+    /**
+     * 摘要算法
+     * Digest Algorithm
+     */
+    public static final String DIGEST_MD5 = "MD5";
+    public static final String DIGEST_SHA1 = "SHA-1";
+
     /**
      * 常用时间戳，单位：s
      * Time stamps
@@ -0,0 +1,49 @@
+package com.anchorer.lib.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * InputStream: AsciiReaderInputStream
+ * 将只包含ASCII字符的Reader适配为InputStream，每个字符对应一个字节，例如Base64文本。
+ * Adapts a Reader of ASCII-only text, such as Base64, to an InputStream, one byte per char.
+ */
+public class AsciiReaderInputStream extends InputStream {
+    private final Reader reader;
+    private final char[] chars;
+
+    public AsciiReaderInputStream(Reader reader) {
+        this(reader, 4096);
+    }
+
+    public AsciiReaderInputStream(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.chars = new char[bufferSize];
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = reader.read();
+        if(c > 0x7F)
+            throw new IOException("AsciiReaderInputStream -- non-ASCII char: " + c);
+        return c;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = reader.read(chars, 0, Math.min(length, chars.length));
+        for(int i = 0; i < read; i++) {
+            char c = chars[i];
+            if(c > 0x7F)
+                throw new IOException("AsciiReaderInputStream -- non-ASCII char: " + (int) c);
+            bytes[offset + i] = (byte) c;
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
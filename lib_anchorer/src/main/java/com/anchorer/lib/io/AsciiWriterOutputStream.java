@@ -0,0 +1,52 @@
+package com.anchorer.lib.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * OutputStream: AsciiWriterOutputStream
+ * 将字节按ASCII字符写入Writer，每个字节对应一个字符，例如Base64文本。
+ * Adapts a Writer to an OutputStream of ASCII bytes, such as Base64, one char per byte.
+ */
+public class AsciiWriterOutputStream extends OutputStream {
+    private final Writer writer;
+    private final char[] chars;
+
+    public AsciiWriterOutputStream(Writer writer) {
+        this(writer, 4096);
+    }
+
+    public AsciiWriterOutputStream(Writer writer, int bufferSize) {
+        this.writer = writer;
+        this.chars = new char[bufferSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        writer.write(b & 0x7F);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while(length > 0) {
+            int count = Math.min(length, chars.length);
+            for(int i = 0; i < count; i++) {
+                chars[i] = (char) (bytes[offset + i] & 0x7F);
+            }
+            writer.write(chars, 0, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
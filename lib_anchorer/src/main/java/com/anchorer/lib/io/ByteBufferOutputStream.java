@@ -0,0 +1,47 @@
+package com.anchorer.lib.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * OutputStream: ByteBufferOutputStream
+ * 将写入的字节直接写入ByteBuffer（可以是Direct Buffer），不做中间拷贝。
+ * OutputStream writing straight into a (possibly direct) ByteBuffer.
+ */
+public class ByteBufferOutputStream extends OutputStream {
+    private final ByteBuffer buffer;
+
+    /**
+     * 构造方法
+     * @param buffer    目标ByteBuffer，从其当前position开始写入
+     *                  destination buffer, written from its current position
+     */
+    public ByteBufferOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        try {
+            buffer.put((byte) b);
+        } catch(BufferOverflowException e) {
+            throw new IOException("ByteBufferOutputStream -- buffer is full.");
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if(length > buffer.remaining())
+            throw new IOException("ByteBufferOutputStream -- buffer is full.");
+        buffer.put(bytes, offset, length);
+    }
+
+    /**
+     * 获取目标ByteBuffer
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+}
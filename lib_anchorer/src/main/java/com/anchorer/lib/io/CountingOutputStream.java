@@ -0,0 +1,57 @@
+package com.anchorer.lib.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * OutputStream: CountingOutputStream
+ * 统计写入字节数的OutputStream，目标流为null时只计数、丢弃数据。
+ * Counts the bytes written through it. With a null target the data is only counted and dropped.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    /**
+     * 构造方法
+     * @param out   目标流，为null时丢弃数据
+     *              target stream, or null to drop the data
+     */
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if(out != null)
+            out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if(out != null)
+            out.write(bytes, offset, length);
+        count += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if(out != null)
+            out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(out != null)
+            out.close();
+    }
+
+    /**
+     * 获取已写入的字节数
+     * Get the number of bytes written so far.
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,60 @@
+package com.anchorer.lib.io;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OutputStream: PooledByteArrayOutputStream
+ * 可复用的ByteArrayOutputStream，直接暴露内部缓冲区以避免toByteArray()的拷贝。
+ * 通过obtain()获取，使用完毕后调用recycle()归还到池中。
+ * A growable byte buffer exposing its internal array, so no toByteArray() copy is needed.
+ * Get one by obtain() and give it back by recycle().
+ */
+public class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+    //池中最多保留的实例个数
+    private static final int POOL_SIZE = 4;
+    //超过该容量的缓冲区不再放回池中，避免长期占用大块内存
+    private static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+    private static final List<PooledByteArrayOutputStream> sPool = new ArrayList<PooledByteArrayOutputStream>(POOL_SIZE);
+
+    public PooledByteArrayOutputStream(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    /**
+     * 从池中获取一个空的实例
+     * Get an empty instance from the pool, or a new one if the pool is empty.
+     */
+    public static PooledByteArrayOutputStream obtain() {
+        synchronized(sPool) {
+            int size = sPool.size();
+            if(size > 0)
+                return sPool.remove(size - 1);
+        }
+        return new PooledByteArrayOutputStream(8 * 1024);
+    }
+
+    /**
+     * 归还到池中，之后不能再使用该实例
+     * Give this instance back to the pool. It must not be used afterwards.
+     */
+    public void recycle() {
+        reset();
+        if(buf.length > MAX_POOLED_CAPACITY)
+            return;
+        synchronized(sPool) {
+            if(sPool.size() < POOL_SIZE)
+                sPool.add(this);
+        }
+    }
+
+    /**
+     * 获取内部缓冲区，有效数据为[0, size())
+     * Get the internal buffer without copying. Valid data is in [0, size()).
+     */
+    public byte[] getBuffer() {
+        return buf;
+    }
+}
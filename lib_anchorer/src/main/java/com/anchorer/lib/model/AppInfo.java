@@ -1,5 +1,8 @@
 package com.anchorer.lib.model;
 
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
 import android.graphics.drawable.Drawable;
 import android.util.Log;
 
@@ -7,16 +10,35 @@ import android.util.Log;
  * Model: AppInfo
  * 应用程序信息
  * Application Infomation.
+ * 通过{@link #setSource(PackageManager, ApplicationInfo)}设置来源后，应用名称和图标在第一次获取时才加载。
+ * With a source set, the label and icon are loaded on first access.
  *
  * Created by Anchorer/duruixue on 2013/12/13..
  * @author Anchorer
  */
 public class AppInfo {
-    private String appName;
+    private volatile String appName;
     private String packageName;
     private String versionName;
     private int versionCode;
-    private Drawable appIcon;
+    private volatile Drawable appIcon;
+    private int flags;
+
+    //延迟加载名称和图标的来源，可能在其他线程已读取本对象后设置，两者放在同一个不可变对象中整体发布
+    private volatile Source source;
+
+    /**
+     * 根据PackageInfo创建应用信息，应用名称和图标在第一次获取时加载
+     * Create an AppInfo from a PackageInfo, with the label and icon loaded lazily.
+     */
+    public static AppInfo fromPackageInfo(PackageManager packageManager, PackageInfo packageInfo) {
+        AppInfo appInfo = new AppInfo();
+        appInfo.setPackageName(packageInfo.packageName);
+        appInfo.setVersionName(packageInfo.versionName);
+        appInfo.setVersionCode(packageInfo.versionCode);
+        appInfo.setSource(packageManager, packageInfo.applicationInfo);
+        return appInfo;
+    }
 
     public void print() {
         Log.d("TEST", "Name: " + appName +
@@ -25,8 +47,39 @@ public class AppInfo {
                 ", VersionCode: " + versionCode);
     }
 
+    /**
+     * 设置延迟加载的来源，应用名称和图标在第一次获取时从来源加载
+     * Set the source the label and icon are lazily loaded from. Safe to call while other threads
+     * are reading this AppInfo.
+     */
+    public void setSource(PackageManager packageManager, ApplicationInfo applicationInfo) {
+        if(applicationInfo != null)
+            this.flags = applicationInfo.flags;
+        this.source = applicationInfo != null ? new Source(packageManager, applicationInfo) : null;
+    }
+
+    public ApplicationInfo getApplicationInfo() {
+        Source current = source;
+        return current != null ? current.applicationInfo : null;
+    }
+
+    /**
+     * 获取应用名称，未加载时从来源加载
+     * Get the label, loading it from the source if needed.
+     */
     public String getAppName() {
-        return appName;
+        String name = appName;
+        Source current = source;
+        if(name == null && current != null) {
+            CharSequence label = current.applicationInfo.loadLabel(current.packageManager);
+            name = label != null ? label.toString() : current.applicationInfo.packageName;
+            appName = name;
+        }
+        return name;
+    }
+
+    public boolean isAppNameLoaded() {
+        return appName != null;
     }
 
     public void setAppName(String appName) {
@@ -57,12 +110,59 @@ public class AppInfo {
         this.versionCode = versionCode;
     }
 
+    /**
+     * 获取应用图标，未加载时从来源加载
+     * Get the icon, loading it from the source if needed.
+     */
     public Drawable getAppIcon() {
-        return appIcon;
+        Drawable icon = appIcon;
+        Source current = source;
+        if(icon == null && current != null) {
+            icon = current.applicationInfo.loadIcon(current.packageManager);
+            appIcon = icon;
+        }
+        return icon;
+    }
+
+    public boolean isAppIconLoaded() {
+        return appIcon != null;
+    }
+
+    /**
+     * 释放已加载的图标，有来源时之后会重新加载
+     * Drop the loaded icon. It is loaded again on next access if a source is set.
+     */
+    public void releaseAppIcon() {
+        appIcon = null;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public void setFlags(int flags) {
+        this.flags = flags;
+    }
+
+    public boolean isSystemApp() {
+        return (flags & ApplicationInfo.FLAG_SYSTEM) != 0;
     }
 
     public void setAppIcon(Drawable appIcon) {
         this.appIcon = appIcon;
     }
 
+    /**
+     * 延迟加载的来源
+     */
+    private static final class Source {
+        final PackageManager packageManager;
+        final ApplicationInfo applicationInfo;
+
+        Source(PackageManager packageManager, ApplicationInfo applicationInfo) {
+            this.packageManager = packageManager;
+            this.applicationInfo = applicationInfo;
+        }
+    }
+
 }
@@ -0,0 +1,396 @@
+package com.anchorer.lib.model;
+
+import com.anchorer.lib.collection.IntIntMap;
+import com.anchorer.lib.collection.StringPool;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Model: AppInfoTable
+ * 按列存储的应用信息表，用于在内存中保存大量应用（例如多台设备的应用清单）。
+ * 1. 每列是一个基本类型数组，字符串列只保存字符串池中的编号，相同的字符串只保存一份；
+ *    多个表可以共享同一个{@link StringPool}；
+ * 2. 通过{@link Cursor}逐行读取，排序和过滤只返回行号数组，不为每行创建对象；
+ * 3. 需要时可以用{@link #getAppInfo(int)}得到某一行的{@link AppInfo}，不含图标。
+ *
+ * Columnar table of app infos for keeping large inventories (such as several devices' apps) in memory.
+ * 1. Each column is a primitive array; string columns hold ids into a {@link StringPool}, which may be
+ *    shared by several tables;
+ * 2. Rows are read through a {@link Cursor}; sort and filter return row number arrays without
+ *    per-row objects;
+ * 3. {@link #getAppInfo(int)} builds an icon-less {@link AppInfo} for a row when needed.
+ */
+public class AppInfoTable {
+    public static final int COLUMN_APP_NAME = 0;
+    public static final int COLUMN_PACKAGE_NAME = 1;
+    public static final int COLUMN_VERSION_NAME = 2;
+    public static final int COLUMN_VERSION_CODE = 3;
+
+    private final StringPool pool;
+    private int size;
+    private int[] appNames;
+    private int[] packageNames;
+    private int[] versionNames;
+    private int[] versionCodes;
+    private int[] flags;
+    //包名编号 -> 该包名所在的第一行
+    private final IntIntMap packageRows;
+
+    //字符串池中各字符串的排序名次，字符串池变化后重新计算
+    private int[] rankIgnoreCase;
+    private int[] rankNatural;
+    private int rankedPoolSize = -1;
+
+    public AppInfoTable() {
+        this(new StringPool(), 16);
+    }
+
+    /**
+     * 构造方法
+     * @param pool              字符串池，可以与其他表共享
+     *                          string pool, may be shared with other tables
+     * @param initialCapacity   初始行数
+     */
+    public AppInfoTable(StringPool pool, int initialCapacity) {
+        this.pool = pool;
+        int capacity = Math.max(initialCapacity, 4);
+        appNames = new int[capacity];
+        packageNames = new int[capacity];
+        versionNames = new int[capacity];
+        versionCodes = new int[capacity];
+        flags = new int[capacity];
+        packageRows = new IntIntMap(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public StringPool getStringPool() {
+        return pool;
+    }
+
+    /**
+     * 添加一行
+     * @return  行号
+     */
+    public int add(String packageName, String appName, String versionName, int versionCode, int flag) {
+        if(size == appNames.length) {
+            int capacity = size << 1;
+            appNames = Arrays.copyOf(appNames, capacity);
+            packageNames = Arrays.copyOf(packageNames, capacity);
+            versionNames = Arrays.copyOf(versionNames, capacity);
+            versionCodes = Arrays.copyOf(versionCodes, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        int row = size++;
+        appNames[row] = pool.intern(appName);
+        packageNames[row] = pool.intern(packageName);
+        versionNames[row] = pool.intern(versionName);
+        versionCodes[row] = versionCode;
+        flags[row] = flag;
+        if(packageNames[row] >= 0 && !packageRows.containsKey(packageNames[row]))
+            packageRows.put(packageNames[row], row);
+        return row;
+    }
+
+    /**
+     * 添加一个应用，应用名称未加载时会在此时加载
+     * Add an app. Its label is loaded now if it was not yet.
+     */
+    public int add(AppInfo appInfo) {
+        return add(appInfo.getPackageName(), appInfo.getAppName(), appInfo.getVersionName(),
+                appInfo.getVersionCode(), appInfo.getFlags());
+    }
+
+    public void addAll(Collection<AppInfo> appInfos) {
+        for(AppInfo appInfo : appInfos) {
+            add(appInfo);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        packageRows.clear();
+    }
+
+    public String getAppName(int row) {
+        return pool.get(appNames[checkRow(row)]);
+    }
+
+    public String getPackageName(int row) {
+        return pool.get(packageNames[checkRow(row)]);
+    }
+
+    public String getVersionName(int row) {
+        return pool.get(versionNames[checkRow(row)]);
+    }
+
+    public int getVersionCode(int row) {
+        return versionCodes[checkRow(row)];
+    }
+
+    public int getFlags(int row) {
+        return flags[checkRow(row)];
+    }
+
+    /**
+     * 查找包名所在的第一行，为常数时间
+     * Find the first row of a package name, in constant time.
+     *
+     * @return  行号，不存在时返回-1
+     */
+    public int findRow(String packageName) {
+        int id = pool.indexOf(packageName);
+        return id < 0 ? -1 : packageRows.get(id, -1);
+    }
+
+    /**
+     * 获取一行对应的应用信息，不含图标
+     * Get the AppInfo of a row, without icon.
+     */
+    public AppInfo getAppInfo(int row) {
+        checkRow(row);
+        AppInfo appInfo = new AppInfo();
+        appInfo.setAppName(pool.get(appNames[row]));
+        appInfo.setPackageName(pool.get(packageNames[row]));
+        appInfo.setVersionName(pool.get(versionNames[row]));
+        appInfo.setVersionCode(versionCodes[row]);
+        appInfo.setFlags(flags[row]);
+        return appInfo;
+    }
+
+    /**
+     * 获取遍历全部行的游标
+     */
+    public Cursor cursor() {
+        return new Cursor(null);
+    }
+
+    /**
+     * 获取按指定行号顺序遍历的游标，行号一般来自{@link #sort}或{@link #filter}
+     * Get a cursor over the given rows, usually the result of sort or filter.
+     */
+    public Cursor cursor(int[] rows) {
+        return new Cursor(rows);
+    }
+
+    /**
+     * 对行排序，应用名称忽略大小写比较，值相同的行保持原有顺序
+     * Sort rows. App names compare ignoring case; rows with equal values keep their order.
+     *
+     * @param rows          待排序的行号，为null时对全部行排序
+     *                      rows to sort, or null for all rows
+     * @param column        排序的列，如{@link #COLUMN_APP_NAME}
+     * @param descending    是否降序
+     * @return  排序后的行号
+     */
+    public int[] sort(int[] rows, int column, boolean descending) {
+        int count = rows != null ? rows.length : size;
+        int[] values = column == COLUMN_VERSION_CODE ? versionCodes : stringColumn(column);
+        int[] rank = column == COLUMN_VERSION_CODE ? null
+                : column == COLUMN_APP_NAME ? ranks(true) : ranks(false);
+
+        //高32位为排序值，低32位为行号，排序基本类型数组，相同值按行号保持稳定
+        long[] keys = new long[count];
+        for(int i = 0; i < count; i++) {
+            int row = rows != null ? rows[i] : i;
+            int key;
+            if(rank == null)
+                key = values[row];
+            else
+                key = values[row] < 0 ? -1 : rank[values[row]];
+            if(descending)
+                key = ~key;
+            keys[i] = (long) key << 32 | (rows != null ? i : row);
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[count];
+        for(int i = 0; i < count; i++) {
+            int index = (int) keys[i];
+            sorted[i] = rows != null ? rows[index] : index;
+        }
+        return sorted;
+    }
+
+    /**
+     * 过滤字符串列包含query（忽略大小写）的行，每个不同的字符串只比较一次
+     * Keep the rows whose string column contains the query, ignoring case. Each distinct string is
+     * matched only once.
+     *
+     * @param rows      待过滤的行号，为null时过滤全部行
+     * @param column    {@link #COLUMN_APP_NAME}, {@link #COLUMN_PACKAGE_NAME}或{@link #COLUMN_VERSION_NAME}
+     * @param query     查询内容
+     */
+    public int[] filter(int[] rows, int column, String query) {
+        int[] values = stringColumn(column);
+        int count = rows != null ? rows.length : size;
+        //0：未比较，1：匹配，2：不匹配
+        byte[] matched = new byte[pool.size()];
+        int[] result = new int[count];
+        int n = 0;
+        for(int i = 0; i < count; i++) {
+            int row = rows != null ? rows[i] : i;
+            int id = values[row];
+            if(id < 0)
+                continue;
+            if(matched[id] == 0)
+                matched[id] = containsIgnoreCase(pool.get(id), query) ? (byte) 1 : (byte) 2;
+            if(matched[id] == 1)
+                result[n++] = row;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * 过滤版本号在[min, max]之间的行
+     */
+    public int[] filterVersionCode(int[] rows, int min, int max) {
+        int count = rows != null ? rows.length : size;
+        int[] result = new int[count];
+        int n = 0;
+        for(int i = 0; i < count; i++) {
+            int row = rows != null ? rows[i] : i;
+            if(versionCodes[row] >= min && versionCodes[row] <= max)
+                result[n++] = row;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private int[] stringColumn(int column) {
+        switch(column) {
+            case COLUMN_APP_NAME:
+                return appNames;
+            case COLUMN_PACKAGE_NAME:
+                return packageNames;
+            case COLUMN_VERSION_NAME:
+                return versionNames;
+            default:
+                throw new IllegalArgumentException("Not a string column: " + column);
+        }
+    }
+
+    /**
+     * 计算字符串池中各字符串的排序名次
+     */
+    private int[] ranks(boolean ignoreCase) {
+        //字符串池只支持添加，大小不变时内容也不变
+        int poolSize = pool.size();
+        if(rankedPoolSize != poolSize) {
+            rankIgnoreCase = null;
+            rankNatural = null;
+            rankedPoolSize = poolSize;
+        }
+        int[] rank = ignoreCase ? rankIgnoreCase : rankNatural;
+        if(rank != null)
+            return rank;
+
+        final String[] strings = new String[poolSize];
+        Integer[] ids = new Integer[poolSize];
+        for(int id = 0; id < poolSize; id++) {
+            strings[id] = pool.get(id);
+            ids[id] = id;
+        }
+        final Comparator<String> order = ignoreCase ? String.CASE_INSENSITIVE_ORDER : null;
+        Arrays.sort(ids, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return order != null ? order.compare(strings[a], strings[b]) : strings[a].compareTo(strings[b]);
+            }
+        });
+        //比较相等的字符串（如仅大小写不同）名次相同，对应的行保持原有顺序
+        rank = new int[poolSize];
+        for(int i = 1; i < poolSize; i++) {
+            boolean tie = order != null ? order.compare(strings[ids[i - 1]], strings[ids[i]]) == 0
+                    : strings[ids[i - 1]].equals(strings[ids[i]]);
+            rank[ids[i]] = tie ? rank[ids[i - 1]] : i;
+        }
+        if(ignoreCase)
+            rankIgnoreCase = rank;
+        else
+            rankNatural = rank;
+        return rank;
+    }
+
+    private static boolean containsIgnoreCase(String value, String query) {
+        int length = query.length();
+        for(int i = 0, last = value.length() - length; i <= last; i++) {
+            if(value.regionMatches(true, i, query, 0, length))
+                return true;
+        }
+        return false;
+    }
+
+    private int checkRow(int row) {
+        if(row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        return row;
+    }
+
+    /**
+     * 游标：按行号顺序逐行读取，不为每行创建对象
+     * Cursor reading rows in order, without per-row objects.
+     */
+    public class Cursor {
+        private final int[] rows;
+        private int position = -1;
+
+        Cursor(int[] rows) {
+            this.rows = rows;
+        }
+
+        public int getCount() {
+            return rows != null ? rows.length : size;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public boolean moveToPosition(int position) {
+            if(position < 0 || position >= getCount()) {
+                this.position = position < 0 ? -1 : getCount();
+                return false;
+            }
+            this.position = position;
+            return true;
+        }
+
+        public boolean moveToFirst() {
+            return moveToPosition(0);
+        }
+
+        public boolean moveToNext() {
+            return moveToPosition(position + 1);
+        }
+
+        /**
+         * 当前行在表中的行号
+         */
+        public int getRow() {
+            return rows != null ? rows[position] : position;
+        }
+
+        public String getAppName() {
+            return AppInfoTable.this.getAppName(getRow());
+        }
+
+        public String getPackageName() {
+            return AppInfoTable.this.getPackageName(getRow());
+        }
+
+        public String getVersionName() {
+            return AppInfoTable.this.getVersionName(getRow());
+        }
+
+        public int getVersionCode() {
+            return AppInfoTable.this.getVersionCode(getRow());
+        }
+
+        public int getFlags() {
+            return AppInfoTable.this.getFlags(getRow());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.anchorer.lib.model;
+
+import com.anchorer.lib.utils.EncodeUtils;
+
+/**
+ * Model: CacheKey
+ * 缓存键：保存原始字符串及其64位xxHash64值。哈希值可作为以long为键的Map的键使用，
+ * 比较时再核对原始字符串，避免哈希冲突导致取错缓存。
+ * Cache key holding the original string and its 64-bit xxHash64. The hash can key long-keyed maps,
+ * while equals() also compares the original string, so a hash collision never returns a wrong entry.
+ */
+public final class CacheKey {
+    private final String key;
+    private final long hash;
+
+    private CacheKey(String key, long hash) {
+        this.key = key;
+        this.hash = hash;
+    }
+
+    /**
+     * 创建缓存键
+     * Create a cache key from a string, such as an URL.
+     */
+    public static CacheKey of(String key) {
+        return new CacheKey(key, hash(key));
+    }
+
+    /**
+     * 计算字符串的缓存哈希值，不创建对象，可用于查询以long为键的Map
+     * Hash a string the same way as CacheKey does, without creating objects. Use it to query
+     * long-keyed maps, then confirm with {@link #matches(CharSequence)}.
+     */
+    public static long hash(CharSequence key) {
+        return EncodeUtils.xxHash64(key, 0, key.length(), 0);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * 判断原始字符串是否与指定内容相同，不创建对象
+     * Check whether the original string equals some chars, without creating objects.
+     */
+    public boolean matches(CharSequence other) {
+        int length = key.length();
+        if(other.length() != length)
+            return false;
+        for(int i = 0; i < length; i++) {
+            if(key.charAt(i) != other.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o)
+            return true;
+        if(!(o instanceof CacheKey))
+            return false;
+        CacheKey other = (CacheKey) o;
+        return hash == other.hash && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
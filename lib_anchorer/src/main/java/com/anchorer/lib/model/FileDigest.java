@@ -0,0 +1,93 @@
+package com.anchorer.lib.model;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Model: FileDigest
+ * 文件摘要，包含按块计算的摘要及由其构成的Merkle树根摘要。
+ * Digest of a file: per-chunk digests and the Merkle root built over them.
+ */
+public class FileDigest {
+    private final File file;
+    private final String algorithm;
+    private final long length;
+    private final int chunkSize;
+    private final byte[][] chunkDigests;
+    private final byte[] rootDigest;
+
+    public FileDigest(File file, String algorithm, long length, int chunkSize, byte[][] chunkDigests, byte[] rootDigest) {
+        this.file = file;
+        this.algorithm = algorithm;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.chunkDigests = chunkDigests;
+        this.rootDigest = rootDigest;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * 计算摘要时文件的长度
+     * File length when the digest was computed.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkDigests.length;
+    }
+
+    /**
+     * 获取指定块的摘要
+     * Get the digest of a chunk.
+     */
+    public byte[] getChunkDigest(int index) {
+        return chunkDigests[index];
+    }
+
+    /**
+     * 获取Merkle树根摘要，可作为整个文件的摘要使用
+     * Get the Merkle root, usable as the digest of the whole file.
+     */
+    public byte[] getRootDigest() {
+        return rootDigest;
+    }
+
+    /**
+     * 判断指定块的摘要是否与另一个FileDigest相同
+     * Check whether a chunk has the same digest as in another FileDigest.
+     */
+    public boolean isChunkEqual(FileDigest other, int index) {
+        return other != null && index < other.getChunkCount()
+                && chunkSize == other.getChunkSize()
+                && Arrays.equals(chunkDigests[index], other.getChunkDigest(index));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o)
+            return true;
+        if(!(o instanceof FileDigest))
+            return false;
+        FileDigest other = (FileDigest) o;
+        return length == other.length && chunkSize == other.chunkSize
+                && algorithm.equals(other.algorithm) && Arrays.equals(rootDigest, other.rootDigest);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(rootDigest);
+    }
+}
@@ -0,0 +1,425 @@
+package com.anchorer.lib.utils;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.pm.PackageManager.NameNotFoundException;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.util.LruCache;
+import android.widget.ImageView;
+
+import com.anchorer.lib.consts.LibConst;
+import com.anchorer.lib.model.AppInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility: AppIconCache
+ * 已安装应用图标的两级缓存：
+ * 1. 内存缓存按Bitmap占用的字节数限制大小；
+ * 2. 磁盘缓存保存缩放到指定尺寸的PNG，以包名和已安装的版本号为键，应用更新后自动失效，已卸载应用的缓存在后台清理；
+ * 3. 图标在线程池中异步加载，同一图标的并发请求合并为一次加载，滚动列表时同一图标不会重复解码。
+ * {@link #load}和{@link #loadInto}须在主线程中调用。
+ *
+ * Two-level cache of installed-app icons:
+ * 1. A memory LRU bounded by bitmap bytes;
+ * 2. A disk cache of PNGs downscaled to the requested size, keyed by package and installed
+ *    versionCode, so entries go stale when the app is updated. Icons of uninstalled apps are pruned
+ *    in the background;
+ * 3. Icons load asynchronously on a thread pool, and concurrent requests for the same icon are
+ *    coalesced into one load. Call load() and loadInto() on the main thread.
+ */
+public class AppIconCache {
+    private static final String DISK_DIR_NAME = "app_icons";
+    private static final String SUFFIX = ".png";
+
+    /**
+     * 图标加载回调，在主线程中执行
+     * Icon callback, called on the main thread.
+     */
+    public interface OnIconLoadedListener {
+        /**
+         * @param icon  图标，加载失败时为null
+         *              the icon, or null if loading failed
+         */
+        void onIconLoaded(String packageName, Bitmap icon);
+    }
+
+    private final Context context;
+    private final PackageManager packageManager;
+    private final int iconSize;
+    private final File diskDir;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ExecutorService executor;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    //以下字段只在主线程中访问
+    //正在加载的图标 -> 等待的回调，用于合并请求
+    private final Map<String, List<OnIconLoadedListener>> pending = new HashMap<String, List<OnIconLoadedListener>>();
+    //ImageView -> 最后一次请求的图标，避免列表复用的View显示过期的图标
+    private final Map<ImageView, String> targets = new WeakHashMap<ImageView, String>();
+
+    /**
+     * 构造方法：内存缓存为最大可用内存的1/16，磁盘缓存位于应用缓存目录
+     * @param context   Context
+     * @param iconSize  图标尺寸(px)
+     */
+    public AppIconCache(Context context, int iconSize) {
+        this(context, iconSize, (int) Math.min(Runtime.getRuntime().maxMemory() / 16, Integer.MAX_VALUE),
+                new File(context.getCacheDir(), DISK_DIR_NAME));
+    }
+
+    /**
+     * 构造方法
+     * @param context           Context
+     * @param iconSize          图标尺寸(px)，磁盘缓存中的图标缩放到该尺寸
+     *                          icon size in px; disk-cached icons are downscaled to it
+     * @param maxMemoryBytes    内存缓存的最大字节数
+     *                          max bytes of bitmaps kept in memory
+     * @param diskDir           磁盘缓存目录
+     */
+    public AppIconCache(Context context, int iconSize, int maxMemoryBytes, File diskDir) {
+        if(iconSize <= 0)
+            throw new IllegalArgumentException("AppIconCache -- iconSize must be positive: " + iconSize);
+        this.context = context.getApplicationContext();
+        this.packageManager = this.context.getPackageManager();
+        this.iconSize = iconSize;
+        this.diskDir = diskDir;
+        this.memoryCache = new LruCache<String, Bitmap>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                //getByteCount要求API 12
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+        int threadCount = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new IconThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                pruneDisk();
+            }
+        });
+    }
+
+    /**
+     * 获取内存缓存中的图标
+     * @return  图标，未缓存时返回null
+     */
+    public Bitmap getCached(String packageName, int versionCode) {
+        return memoryCache.get(key(packageName, versionCode));
+    }
+
+    /**
+     * 加载应用图标，内存缓存命中时直接回调
+     * Load an app icon. The listener is called right away on a memory hit.
+     */
+    public void load(AppInfo appInfo, OnIconLoadedListener listener) {
+        load(appInfo.getPackageName(), appInfo.getVersionCode(), listener);
+    }
+
+    /**
+     * 加载应用图标，内存缓存命中时直接回调；同一图标正在加载时只登记回调，不重复加载
+     * Load an app icon. The listener is called right away on a memory hit; if the same icon is
+     * already loading, the listener just joins that load.
+     */
+    public void load(final String packageName, final int versionCode, OnIconLoadedListener listener) {
+        final String key = key(packageName, versionCode);
+        Bitmap cached = memoryCache.get(key);
+        if(cached != null) {
+            listener.onIconLoaded(packageName, cached);
+            return;
+        }
+        List<OnIconLoadedListener> listeners = pending.get(key);
+        if(listeners != null) {
+            listeners.add(listener);
+            return;
+        }
+        listeners = new ArrayList<OnIconLoadedListener>(2);
+        listeners.add(listener);
+        pending.put(key, listeners);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap icon = null;
+                try {
+                    icon = loadSync(packageName, versionCode);
+                } catch(RuntimeException e) {
+                    L.w(LibConst.LOG, "AppIconCache -- load: " + packageName, e);
+                } finally {
+                    //加载失败时也要移除登记并以null回调，否则之后对该图标的请求都只会登记而不再加载
+                    deliver(key, packageName, icon);
+                }
+            }
+        });
+    }
+
+    /**
+     * 在主线程中移除登记的回调并通知加载结果
+     */
+    private void deliver(final String key, final String packageName, final Bitmap icon) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                List<OnIconLoadedListener> waiting = pending.remove(key);
+                if(waiting == null)
+                    return;
+                for(OnIconLoadedListener waiter : waiting) {
+                    waiter.onIconLoaded(packageName, icon);
+                }
+            }
+        });
+    }
+
+    /**
+     * 加载应用图标并显示在ImageView中；ImageView被复用并请求其他图标后，之前的结果不再显示
+     * Load an app icon into an ImageView. A stale result is dropped if the view was reused for
+     * another icon in the meantime.
+     */
+    public void loadInto(AppInfo appInfo, ImageView view) {
+        loadInto(appInfo, view, null);
+    }
+
+    /**
+     * 加载应用图标并显示在ImageView中，内存缓存未命中时先显示placeholder，避免被复用的ImageView显示之前的图标
+     * Load an app icon into an ImageView, showing the placeholder until it is loaded so that a
+     * reused view never shows its previous icon.
+     *
+     * @param placeholder   加载期间显示的图片，为null时清空ImageView
+     *                      drawable shown while loading, or null to clear the view
+     */
+    public void loadInto(AppInfo appInfo, final ImageView view, Drawable placeholder) {
+        final String key = key(appInfo.getPackageName(), appInfo.getVersionCode());
+        Bitmap cached = memoryCache.get(key);
+        if(cached != null) {
+            targets.remove(view);
+            view.setImageBitmap(cached);
+            return;
+        }
+        view.setImageDrawable(placeholder);
+        targets.put(view, key);
+        load(appInfo.getPackageName(), appInfo.getVersionCode(), new OnIconLoadedListener() {
+            @Override
+            public void onIconLoaded(String packageName, Bitmap icon) {
+                if(key.equals(targets.get(view))) {
+                    targets.remove(view);
+                    view.setImageBitmap(icon);
+                }
+            }
+        });
+    }
+
+    /**
+     * 同步加载应用图标：依次查找内存缓存、磁盘缓存，最后从PackageManager加载并写入两级缓存。不要在主线程中调用。
+     * 从PackageManager加载时按已安装的版本号缓存，versionCode已过期时不会覆盖或删除当前版本的缓存。
+     * Load an icon synchronously from memory, then disk, then PackageManager, filling both cache
+     * levels. Do not call on the main thread. Icons loaded from PackageManager are cached under the
+     * installed versionCode, so a stale versionCode never replaces or deletes the current entry.
+     *
+     * @return  图标，应用不存在或加载失败时返回null
+     */
+    public Bitmap loadSync(String packageName, int versionCode) {
+        String key = key(packageName, versionCode);
+        Bitmap icon = memoryCache.get(key);
+        if(icon != null)
+            return icon;
+
+        File file = diskFile(packageName, versionCode);
+        if(file.isFile())
+            icon = BitmapFactory.decodeFile(file.getPath());
+        if(icon == null) {
+            int installedVersion;
+            try {
+                installedVersion = packageManager.getPackageInfo(packageName, 0).versionCode;
+            } catch(NameNotFoundException e) {
+                return null;
+            }
+            icon = loadFromPackageManager(packageName);
+            if(icon == null)
+                return null;
+            if(installedVersion != versionCode) {
+                key = key(packageName, installedVersion);
+                file = diskFile(packageName, installedVersion);
+            }
+            writeDisk(packageName, installedVersion, file, icon);
+        }
+        memoryCache.put(key, icon);
+        return icon;
+    }
+
+    /**
+     * 清空内存缓存
+     */
+    public void evictMemory() {
+        memoryCache.evictAll();
+    }
+
+    /**
+     * 清空磁盘缓存，不要在主线程中调用
+     */
+    public void clearDisk() {
+        File[] files = diskDir.listFiles();
+        if(files == null)
+            return;
+        for(File file : files) {
+            file.delete();
+        }
+    }
+
+    /**
+     * 删除已卸载应用的磁盘缓存及写入失败残留的临时文件，构造时已在后台执行一次，不要在主线程中调用
+     * Delete the disk-cached icons of uninstalled apps and leftover temp files. Run once in the
+     * background on construction. Do not call on the main thread.
+     */
+    public void pruneDisk() {
+        File[] files = diskDir.listFiles();
+        if(files == null)
+            return;
+        InstalledAppSnapshot snapshot = InstalledAppSnapshot.getInstance(context);
+        for(File file : files) {
+            String name = file.getName();
+            if(name.endsWith(".tmp")) {
+                file.delete();
+                continue;
+            }
+            String packageName = parsePackageName(name);
+            if(packageName != null && !snapshot.isInstalled(packageName))
+                file.delete();
+        }
+    }
+
+    /**
+     * 从PackageManager加载图标并缩放到指定尺寸
+     */
+    private Bitmap loadFromPackageManager(String packageName) {
+        Drawable drawable;
+        try {
+            drawable = packageManager.getApplicationIcon(packageName);
+        } catch(NameNotFoundException e) {
+            return null;
+        }
+        if(drawable instanceof BitmapDrawable) {
+            Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+            if(bitmap != null && bitmap.getWidth() == iconSize && bitmap.getHeight() == iconSize)
+                return bitmap;
+            if(bitmap != null)
+                return Bitmap.createScaledBitmap(bitmap, iconSize, iconSize, true);
+        }
+        Bitmap bitmap = Bitmap.createBitmap(iconSize, iconSize, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, iconSize, iconSize);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
+    /**
+     * 写入磁盘缓存，并删除该应用同一尺寸其他版本的缓存；先写临时文件再重命名
+     */
+    private void writeDisk(String packageName, int versionCode, File file, Bitmap icon) {
+        if(!diskDir.exists() && !diskDir.mkdirs())
+            return;
+        File[] files = diskDir.listFiles();
+        if(files != null) {
+            for(File old : files) {
+                if(isOtherVersion(old.getName(), packageName, versionCode))
+                    old.delete();
+            }
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        OutputStream out = null;
+        boolean success = false;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tempFile));
+            success = icon.compress(Bitmap.CompressFormat.PNG, 100, out);
+            out.close();
+            success = success && tempFile.renameTo(file);
+        } catch(IOException e) {
+            L.w(LibConst.LOG, "AppIconCache -- writeDisk: IOException, " + file, e);
+            success = false;
+        } finally {
+            IOUtils.closeQuietly(out);
+            if(!success)
+                tempFile.delete();
+        }
+    }
+
+    /**
+     * 文件名是否为同一应用、同一尺寸、其他版本的缓存。文件名为"包名_版本号_尺寸.png"，包名中可能含有'_'，从末尾解析。
+     */
+    private boolean isOtherVersion(String name, String packageName, int versionCode) {
+        if(!name.endsWith(SUFFIX))
+            return false;
+        int sizeStart = name.lastIndexOf('_', name.length() - SUFFIX.length() - 1);
+        if(sizeStart <= 0)
+            return false;
+        int versionStart = name.lastIndexOf('_', sizeStart - 1);
+        //包名必须完全相同，"com.a"的缓存不能匹配"com.a_b"
+        if(versionStart != packageName.length() || !name.startsWith(packageName))
+            return false;
+        try {
+            int size = Integer.parseInt(name.substring(sizeStart + 1, name.length() - SUFFIX.length()));
+            int version = Integer.parseInt(name.substring(versionStart + 1, sizeStart));
+            return size == iconSize && version != versionCode;
+        } catch(NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 从缓存文件名"包名_版本号_尺寸.png"中解析包名
+     * @return  包名，文件名格式不符时返回null
+     */
+    private static String parsePackageName(String name) {
+        if(!name.endsWith(SUFFIX))
+            return null;
+        int sizeStart = name.lastIndexOf('_', name.length() - SUFFIX.length() - 1);
+        if(sizeStart <= 0)
+            return null;
+        int versionStart = name.lastIndexOf('_', sizeStart - 1);
+        return versionStart > 0 ? name.substring(0, versionStart) : null;
+    }
+
+    private File diskFile(String packageName, int versionCode) {
+        return new File(diskDir, packageName + '_' + versionCode + '_' + iconSize + SUFFIX);
+    }
+
+    private static String key(String packageName, int versionCode) {
+        return packageName + ':' + versionCode;
+    }
+
+    private static class IconThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "AppIconCache-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
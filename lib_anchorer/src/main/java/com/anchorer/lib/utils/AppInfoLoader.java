@@ -0,0 +1,190 @@
+package com.anchorer.lib.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.anchorer.lib.consts.LibConst;
+import com.anchorer.lib.model.AppInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility: AppInfoLoader
+ * 分页加载已安装应用信息：先一次性获取应用列表（不加载名称和图标），再按页在线程池中并行加载应用名称，
+ * 每加载完一页即在主线程中回调，第一页可以在全部应用加载完成之前显示。图标仍在第一次获取时加载。
+ *
+ * Loads installed applications in pages. The package list is fetched once without labels or icons,
+ * then the labels of each page are loaded in parallel on a worker pool and the page is delivered on
+ * the main thread, so the first page shows before the rest is loaded. Icons stay lazy.
+ */
+public class AppInfoLoader {
+    public static final int DEFAULT_PAGE_SIZE = 30;
+
+    /**
+     * 分页回调，在主线程中执行
+     * Page callback, called on the main thread.
+     */
+    public interface OnPageLoadedListener {
+        /**
+         * @param page      本页的应用，名称已加载
+         *                  apps of this page, labels loaded
+         * @param pageIndex 页序号，从0开始
+         * @param last      是否为最后一页
+         */
+        void onPageLoaded(List<AppInfo> page, int pageIndex, boolean last);
+    }
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    //按页调度的线程，与加载名称的线程池分开，避免调度任务占满线程池
+    private final ExecutorService pageExecutor;
+    private final ExecutorService labelExecutor;
+
+    /**
+     * 构造方法：线程数为CPU核数
+     */
+    public AppInfoLoader(Context context) {
+        this(context, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构造方法
+     * @param context       Context
+     * @param threadCount   加载应用名称的线程数
+     *                      number of threads loading labels
+     */
+    public AppInfoLoader(Context context, int threadCount) {
+        if(threadCount <= 0)
+            throw new IllegalArgumentException("AppInfoLoader -- threadCount must be positive: " + threadCount);
+        this.context = context.getApplicationContext();
+        this.pageExecutor = newExecutor(1);
+        this.labelExecutor = newExecutor(threadCount);
+    }
+
+    /**
+     * 在后台分页加载已安装的应用
+     * Load installed applications in pages on background threads.
+     *
+     * @param includeSystemApps 是否包含系统应用
+     * @param pageSize          每页应用数
+     * @param listener          分页回调
+     * @return  用于取消加载的Future，取消后不再回调
+     *          Future cancelling the load; no page is delivered after cancel
+     */
+    public Future<?> loadPages(boolean includeSystemApps, int pageSize, OnPageLoadedListener listener) {
+        if(pageSize <= 0)
+            throw new IllegalArgumentException("AppInfoLoader -- pageSize must be positive: " + pageSize);
+        PageLoader loader = new PageLoader(includeSystemApps, pageSize, listener);
+        FutureTask<Void> future = new FutureTask<Void>(loader, null);
+        loader.future = future;
+        pageExecutor.execute(future);
+        return future;
+    }
+
+    /**
+     * 关闭线程池，未完成的加载将被中断
+     * Shut down the worker threads, interrupting unfinished loads.
+     */
+    public void shutdown() {
+        pageExecutor.shutdownNow();
+        labelExecutor.shutdownNow();
+    }
+
+    /**
+     * 在线程池中并行加载一页应用的名称
+     */
+    private void loadLabels(List<AppInfo> page) throws InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(page.size());
+        for(final AppInfo appInfo : page) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    appInfo.getAppName();
+                    return null;
+                }
+            });
+        }
+        for(Future<Void> result : labelExecutor.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch(Exception e) {
+                //加载失败的名称在之后获取时重试
+                L.w(LibConst.LOG, "AppInfoLoader -- loadLabels: " + e);
+            }
+        }
+    }
+
+    private static ExecutorService newExecutor(int threadCount) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new LoaderThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private class PageLoader implements Runnable {
+        private final boolean includeSystemApps;
+        private final int pageSize;
+        private final OnPageLoadedListener listener;
+        FutureTask<Void> future;
+
+        PageLoader(boolean includeSystemApps, int pageSize, OnPageLoadedListener listener) {
+            this.includeSystemApps = includeSystemApps;
+            this.pageSize = pageSize;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            List<AppInfo> apps = SystemUtils.getLazyAppInfoList(context, includeSystemApps);
+            if(apps.isEmpty()) {
+                deliver(Collections.<AppInfo>emptyList(), 0, true);
+                return;
+            }
+            try {
+                for(int from = 0, pageIndex = 0; from < apps.size(); from += pageSize, pageIndex++) {
+                    if(future.isCancelled())
+                        return;
+                    int to = Math.min(from + pageSize, apps.size());
+                    List<AppInfo> page = new ArrayList<AppInfo>(apps.subList(from, to));
+                    loadLabels(page);
+                    deliver(page, pageIndex, to == apps.size());
+                }
+            } catch(InterruptedException e) {
+                //加载被取消
+            }
+        }
+
+        private void deliver(final List<AppInfo> page, final int pageIndex, final boolean last) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if(!future.isCancelled())
+                        listener.onPageLoaded(page, pageIndex, last);
+                }
+            });
+        }
+    }
+
+    private static class LoaderThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "AppInfoLoader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
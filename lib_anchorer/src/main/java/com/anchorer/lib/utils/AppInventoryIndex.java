@@ -0,0 +1,185 @@
+package com.anchorer.lib.utils;
+
+import com.anchorer.lib.consts.LibConst;
+import com.anchorer.lib.model.AppInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Utility: AppInventoryIndex
+ * 已安装应用清单的持久化索引，保存包名、应用名称、版本名、版本号和标志位，用于冷启动时立即显示应用列表。
+ * 文件使用紧凑的二进制格式：所有字符串去重后存入字符串池，每个应用只保存5个int；通过内存映射方式加载。
+ * 应用名称与系统语言相关，语言变化后加载的应用不包含名称。
+ *
+ * Persistent index of the installed-app inventory (package, label, versionName, versionCode, flags),
+ * so the app list can be shown right away at cold start. The compact binary file interns all strings
+ * in a pool and stores five ints per app; it is loaded by memory mapping. Labels are dropped on load
+ * if the system locale changed since the index was saved.
+ */
+public class AppInventoryIndex {
+    private static final int MAGIC = 0x41494E56; // "AINV"
+    private static final int VERSION = 1;
+    private static final int NO_STRING = -1;
+    private static final Charset UTF_8 = Charset.forName(LibConst.ENCODING_UTF_8);
+
+    private final File indexFile;
+
+    /**
+     * 构造方法
+     * @param indexFile 索引文件
+     */
+    public AppInventoryIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * 加载索引中的应用，文件不存在或格式错误时返回空列表，内容损坏的文件会被删除。返回的应用没有延迟加载的来源。
+     * Load the indexed apps, or an empty list if the file is missing or invalid. A corrupted file
+     * is deleted so it does not fail every start. The returned apps have no lazy-loading source set.
+     */
+    public List<AppInfo> load() {
+        if(!indexFile.isFile())
+            return Collections.emptyList();
+        FileInputStream in = null;
+        boolean corrupted = false;
+        try {
+            in = new FileInputStream(indexFile);
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                L.w(LibConst.LOG, "AppInventoryIndex -- load: unknown format, " + indexFile);
+                return Collections.emptyList();
+            }
+            boolean sameLocale = readString(buffer).equals(Locale.getDefault().toString());
+
+            //每个字符串至少占2字节（长度），每个应用占5个int，数量超出剩余字节时文件已损坏
+            int poolSize = buffer.getInt();
+            if(poolSize < 0 || poolSize > buffer.remaining() / 2)
+                throw new IllegalStateException("pool size " + poolSize);
+            String[] pool = new String[poolSize];
+            for(int i = 0; i < pool.length; i++)
+                pool[i] = readString(buffer);
+
+            int count = buffer.getInt();
+            if(count < 0 || count > buffer.remaining() / 20)
+                throw new IllegalStateException("app count " + count);
+            List<AppInfo> apps = new ArrayList<AppInfo>(count);
+            for(int i = 0; i < count; i++) {
+                int packageName = buffer.getInt();
+                int label = buffer.getInt();
+                int versionName = buffer.getInt();
+                AppInfo appInfo = new AppInfo();
+                appInfo.setPackageName(pool[packageName]);
+                if(sameLocale && label != NO_STRING)
+                    appInfo.setAppName(pool[label]);
+                if(versionName != NO_STRING)
+                    appInfo.setVersionName(pool[versionName]);
+                appInfo.setVersionCode(buffer.getInt());
+                appInfo.setFlags(buffer.getInt());
+                apps.add(appInfo);
+            }
+            return apps;
+        } catch(IOException e) {
+            L.w(LibConst.LOG, "AppInventoryIndex -- load: IOException, " + indexFile, e);
+        } catch(RuntimeException e) {
+            //截断（BufferUnderflowException）、越界的字符串序号、错误的数量等
+            L.w(LibConst.LOG, "AppInventoryIndex -- load: corrupted, " + indexFile, e);
+            corrupted = true;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        if(corrupted)
+            delete();
+        return Collections.emptyList();
+    }
+
+    /**
+     * 保存应用清单，先写临时文件再重命名。未加载的应用名称会在此时加载，不要在主线程中调用。
+     * Save the inventory through a temp file and a rename. Labels not loaded yet are loaded now,
+     * so do not call on the main thread.
+     */
+    public void save(Collection<AppInfo> apps) throws IOException {
+        Map<String, Integer> poolIndex = new HashMap<String, Integer>();
+        List<String> pool = new ArrayList<String>();
+        int[] records = new int[apps.size() * 5];
+        int r = 0;
+        for(AppInfo appInfo : apps) {
+            records[r++] = intern(appInfo.getPackageName(), poolIndex, pool);
+            records[r++] = intern(appInfo.getAppName(), poolIndex, pool);
+            records[r++] = intern(appInfo.getVersionName(), poolIndex, pool);
+            records[r++] = appInfo.getVersionCode();
+            records[r++] = appInfo.getFlags();
+        }
+
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        boolean success = false;
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, Locale.getDefault().toString());
+            out.writeInt(pool.size());
+            for(String value : pool)
+                writeString(out, value);
+            out.writeInt(r / 5);
+            for(int i = 0; i < r; i++)
+                out.writeInt(records[i]);
+            out.close();
+            success = tempFile.renameTo(indexFile);
+        } finally {
+            IOUtils.closeQuietly(out);
+            if(!success)
+                tempFile.delete();
+        }
+        if(!success)
+            throw new IOException("AppInventoryIndex -- save: failed to write " + indexFile);
+    }
+
+    /**
+     * 删除索引文件
+     */
+    public void delete() {
+        indexFile.delete();
+    }
+
+    private static int intern(String value, Map<String, Integer> poolIndex, List<String> pool) {
+        if(value == null)
+            return NO_STRING;
+        Integer index = poolIndex.get(value);
+        if(index == null) {
+            index = pool.size();
+            pool.add(value);
+            poolIndex.put(value, index);
+        }
+        return index;
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        if(bytes.length > 0xFFFF)
+            throw new IOException("AppInventoryIndex -- save: string too long, " + bytes.length);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,280 @@
+package com.anchorer.lib.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.anchorer.lib.model.AppInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility: AppSearchIndex
+ * 已安装应用的名称搜索索引，支持名称前缀、拼音首字母和完整拼音匹配，结果按匹配程度排序。
+ * 1. 索引基于{@link InstalledAppSnapshot}建立，快照变化时只更新增加、删除或版本变化的应用；
+ * 2. 每个应用的小写名称、拼音首字母和完整拼音在建立索引时计算一次，查询时只做字符串比较；
+ * 3. {@link #searchAsync}在后台线程中查询，被新查询取代的查询不再回调；
+ * 4. 不再使用时调用{@link #release()}，停止监听快照并结束工作线程。
+ *
+ * Search index over installed app names with name-prefix, pinyin-initial and full-pinyin matching and
+ * ranked results.
+ * 1. Built from an {@link InstalledAppSnapshot}; on snapshot changes only added, removed or updated
+ *    apps are re-indexed;
+ * 2. Lower-case names, initials and pinyin are computed once per app; queries only compare strings;
+ * 3. {@link #searchAsync} queries on a background thread and drops superseded queries;
+ * 4. Call {@link #release()} when done, to stop listening to the snapshot and end the worker.
+ */
+public class AppSearchIndex {
+
+    /**
+     * 异步查询回调，在主线程中执行
+     * Async search callback, called on the main thread.
+     */
+    public interface OnSearchResultListener {
+        void onSearchResult(String query, List<AppInfo> results);
+    }
+
+    //匹配得分，越高越靠前
+    private static final int SCORE_NAME_PREFIX = 600;
+    private static final int SCORE_INITIALS_PREFIX = 500;
+    private static final int SCORE_PINYIN_PREFIX = 400;
+    private static final int SCORE_NAME_CONTAINS = 300;
+    private static final int SCORE_INITIALS_CONTAINS = 200;
+    private static final int SCORE_PINYIN_CONTAINS = 100;
+
+    private final InstalledAppSnapshot snapshot;
+    private final PinyinUtils.PinyinConverter converter;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ExecutorService worker;
+    private final InstalledAppSnapshot.OnSnapshotChangedListener snapshotListener =
+            new InstalledAppSnapshot.OnSnapshotChangedListener() {
+                @Override
+                public void onSnapshotChanged(InstalledAppSnapshot snapshot, long version) {
+                    requestSync();
+                }
+            };
+    private volatile boolean released;
+
+    //包名 -> 索引项，只在工作线程中修改
+    private final Map<String, Entry> entryMap = new HashMap<String, Entry>();
+    //查询使用的索引项数组，每次更新时整体替换
+    private volatile Entry[] entries = new Entry[0];
+    private volatile long indexedVersion = -1;
+    private volatile int searchGeneration;
+
+    /**
+     * 构造方法
+     * @param snapshot  已安装应用快照
+     * @param converter 完整拼音转换器，为null时只支持名称和拼音首字母匹配
+     *                  full pinyin converter, or null for name and initial matching only
+     */
+    public AppSearchIndex(InstalledAppSnapshot snapshot, PinyinUtils.PinyinConverter converter) {
+        this.snapshot = snapshot;
+        this.converter = converter;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "AppSearchIndex");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.worker = executor;
+        snapshot.addOnSnapshotChangedListener(snapshotListener);
+        requestSync();
+    }
+
+    /**
+     * 停止监听快照并结束工作线程，尚未回调的异步查询不再回调。之后的requestSync和searchAsync被忽略。
+     * Stop listening to the snapshot and shut the worker down; pending async results are dropped.
+     * Later calls to requestSync and searchAsync are ignored.
+     */
+    public void release() {
+        if(released)
+            return;
+        released = true;
+        snapshot.removeOnSnapshotChangedListener(snapshotListener);
+        searchGeneration++;
+        worker.shutdown();
+    }
+
+    /**
+     * 在工作线程中与快照同步
+     * Sync with the snapshot on the worker thread.
+     */
+    public void requestSync() {
+        if(released)
+            return;
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                sync();
+            }
+        });
+    }
+
+    /**
+     * 与快照同步，只处理变化的应用。应用名称未加载时会在此时加载，不要在主线程中调用。
+     * Sync with the snapshot, re-indexing changed apps only. Labels are loaded if needed, so do not
+     * call on the main thread.
+     */
+    public synchronized void sync() {
+        long version = snapshot.getVersion();
+        if(version == indexedVersion)
+            return;
+        Map<String, AppInfo> apps = snapshot.getApps();
+        entryMap.keySet().retainAll(apps.keySet());
+        for(AppInfo appInfo : apps.values()) {
+            Entry entry = entryMap.get(appInfo.getPackageName());
+            if(entry != null && entry.appInfo.getVersionCode() == appInfo.getVersionCode()
+                    && entry.label.equals(labelOf(appInfo))) {
+                //版本和名称未变化，沿用已计算的拼音
+                entry.appInfo = appInfo;
+                continue;
+            }
+            entryMap.put(appInfo.getPackageName(), new Entry(appInfo, converter));
+        }
+        entries = entryMap.values().toArray(new Entry[entryMap.size()]);
+        indexedVersion = version;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * 查询应用，按匹配程度排序：名称前缀 > 拼音首字母前缀 > 完整拼音前缀 > 名称包含 > 拼音首字母包含 > 完整拼音包含；
+     * 匹配程度相同时名称较短的在前。
+     * Search apps, ranked name prefix > initials prefix > pinyin prefix > name contains >
+     * initials contains > pinyin contains, then shorter names first.
+     *
+     * @param query 查询内容，忽略大小写和空白
+     * @param limit 最多返回的数量
+     */
+    public List<AppInfo> search(String query, int limit) {
+        String key = normalize(query);
+        Entry[] current = entries;
+        if(key.length() == 0 || limit <= 0 || current.length == 0)
+            return Collections.emptyList();
+
+        //按得分降序插入，只保留limit个
+        Entry[] top = new Entry[Math.min(limit, current.length)];
+        int[] scores = new int[top.length];
+        int size = 0;
+        for(Entry entry : current) {
+            int score = entry.match(key);
+            if(score <= 0)
+                continue;
+            if(size == top.length && !better(score, entry, scores[size - 1], top[size - 1]))
+                continue;
+            int i = size == top.length ? size - 1 : size++;
+            while(i > 0 && better(score, entry, scores[i - 1], top[i - 1])) {
+                top[i] = top[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            top[i] = entry;
+            scores[i] = score;
+        }
+
+        List<AppInfo> results = new ArrayList<AppInfo>(size);
+        for(int i = 0; i < size; i++)
+            results.add(top[i].appInfo);
+        return results;
+    }
+
+    /**
+     * 在工作线程中查询，结果在主线程中回调；新的查询会取代尚未完成的查询
+     * Search on the worker thread and deliver on the main thread. A newer query supersedes pending ones.
+     */
+    public void searchAsync(final String query, final int limit, final OnSearchResultListener listener) {
+        if(released)
+            return;
+        final int generation = ++searchGeneration;
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                if(generation != searchGeneration)
+                    return;
+                sync();
+                final List<AppInfo> results = search(query, limit);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(generation == searchGeneration)
+                            listener.onSearchResult(query, results);
+                    }
+                });
+            }
+        });
+    }
+
+    private static boolean better(int score, Entry entry, int otherScore, Entry other) {
+        if(score != otherScore)
+            return score > otherScore;
+        return entry.name.length() < other.name.length();
+    }
+
+    private static String labelOf(AppInfo appInfo) {
+        String label = appInfo.getAppName();
+        return label != null ? label : appInfo.getPackageName();
+    }
+
+    private static String normalize(String text) {
+        if(text == null)
+            return "";
+        StringBuilder builder = new StringBuilder(text.length());
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if(!Character.isWhitespace(c))
+                builder.append(c);
+        }
+        return builder.toString().toLowerCase(Locale.US);
+    }
+
+    /**
+     * 索引项：小写名称、拼音首字母和完整拼音
+     */
+    private static class Entry {
+        AppInfo appInfo;
+        final String label;
+        final String name;
+        final String initials;
+        final String pinyin;
+
+        Entry(AppInfo appInfo, PinyinUtils.PinyinConverter converter) {
+            this.appInfo = appInfo;
+            this.label = labelOf(appInfo);
+            this.name = normalize(label);
+            this.initials = PinyinUtils.getInitials(label, converter);
+            this.pinyin = PinyinUtils.getPinyin(label, converter);
+        }
+
+        int match(String key) {
+            if(name.startsWith(key))
+                return SCORE_NAME_PREFIX;
+            if(initials.startsWith(key))
+                return SCORE_INITIALS_PREFIX;
+            if(pinyin != null && pinyin.startsWith(key))
+                return SCORE_PINYIN_PREFIX;
+            if(name.contains(key))
+                return SCORE_NAME_CONTAINS;
+            if(initials.contains(key))
+                return SCORE_INITIALS_CONTAINS;
+            if(pinyin != null && pinyin.contains(key))
+                return SCORE_PINYIN_CONTAINS;
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.anchorer.lib.utils;
+
+/**
+ * Utility: CharSlice
+ * 字符序列的切片视图，直接引用原始内容，不拷贝字符。
+ * A view over a range of another CharSequence. Chars are not copied.
+ */
+public final class CharSlice implements CharSequence {
+    private final CharSequence source;
+    private final int start;
+    private final int end;
+
+    /**
+     * 构造方法
+     * @param source    原始字符序列
+     *                  underlying chars
+     * @param start     起始位置（包含）
+     *                  start index, inclusive
+     * @param end       结束位置（不包含）
+     *                  end index, exclusive
+     */
+    public CharSlice(CharSequence source, int start, int end) {
+        if(start < 0 || end > source.length() || start > end)
+            throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + source.length());
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if(index < 0 || index >= end - start)
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + (end - start));
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if(from < 0 || to > end - start || from > to)
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + (end - start));
+        return new CharSlice(source, start + from, start + to);
+    }
+
+    /**
+     * 不区分大小写比较（只对ASCII字母）
+     * Compare with a string ignoring ASCII case.
+     */
+    public boolean equalsIgnoreCase(String other) {
+        return regionEqualsIgnoreCase(source, start, end, other);
+    }
+
+    /**
+     * 判断内容是否相同
+     * Check whether the chars equal another CharSequence.
+     */
+    public boolean contentEquals(CharSequence other) {
+        int length = end - start;
+        if(other.length() != length)
+            return false;
+        for(int i = 0; i < length; i++) {
+            if(source.charAt(start + i) != other.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 不区分大小写（只对ASCII字母）比较字符序列的指定区域与字符串
+     * Compare a region of a CharSequence with a string, ignoring ASCII case.
+     */
+    public static boolean regionEqualsIgnoreCase(CharSequence source, int start, int end, String other) {
+        int length = end - start;
+        if(other.length() != length)
+            return false;
+        for(int i = 0; i < length; i++) {
+            if(toLowerAscii(source.charAt(start + i)) != toLowerAscii(other.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * ASCII字母转小写，其他字符不变
+     * Lower-case an ASCII letter, other chars are returned unchanged.
+     */
+    public static char toLowerAscii(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    @Override
+    public String toString() {
+        return source.subSequence(start, end).toString();
+    }
+}
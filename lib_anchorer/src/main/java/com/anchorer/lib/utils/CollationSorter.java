@@ -0,0 +1,302 @@
+package com.anchorer.lib.utils;
+
+import android.support.v4.util.LruCache;
+
+import com.anchorer.lib.model.AppInfo;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility: CollationSorter
+ * 按系统语言排序字符串或对象列表（例如中英文混合的应用名称）。
+ * 1. 每个字符串只计算一次排序键（CollationKey的字节形式）并缓存，排序时只比较字节数组，不再调用Collator.compare；
+ * 2. 系统语言变化后缓存自动失效；
+ * 3. 元素较多时分段在线程池中并行排序后归并；排序是稳定的。
+ *
+ * Locale-aware sorting of strings or objects, such as mixed Chinese/English app names.
+ * 1. The sort key (CollationKey bytes) of each string is computed once and cached, so sorting only
+ *    compares byte arrays instead of calling Collator.compare;
+ * 2. The cache is dropped when the default locale changes;
+ * 3. Large inputs are sorted in chunks on a thread pool and merged. The sort is stable.
+ */
+public class CollationSorter {
+    public static final int DEFAULT_CACHE_SIZE = 2048;
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * 获取排序所用的字符串
+     * Extracts the string an element is sorted by.
+     */
+    public interface KeyExtractor<T> {
+        String getKey(T item);
+    }
+
+    private static final KeyExtractor<String> IDENTITY = new KeyExtractor<String>() {
+        @Override
+        public String getKey(String item) {
+            return item;
+        }
+    };
+
+    private static final KeyExtractor<AppInfo> APP_NAME = new KeyExtractor<AppInfo>() {
+        @Override
+        public String getKey(AppInfo item) {
+            return item.getAppName();
+        }
+    };
+
+    private static final Comparator<Entry> ENTRY_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            byte[] x = a.key, y = b.key;
+            int length = Math.min(x.length, y.length);
+            for(int i = 0; i < length; i++) {
+                int diff = (x[i] & 0xFF) - (y[i] & 0xFF);
+                if(diff != 0)
+                    return diff;
+            }
+            if(x.length != y.length)
+                return x.length - y.length;
+            return a.index < b.index ? -1 : (a.index == b.index ? 0 : 1);
+        }
+    };
+
+    private static volatile CollationSorter sDefault;
+
+    private final LruCache<String, byte[]> cache;
+    private final int parallelThreshold;
+    private final int threadCount;
+    private ExecutorService executor;
+
+    //以下字段由this保护，Collator不是线程安全的
+    private Locale locale;
+    private Collator collator;
+
+    /**
+     * 获取全局共享的排序器
+     * Get the process-wide shared sorter.
+     */
+    public static CollationSorter getDefault() {
+        if(sDefault == null) {
+            synchronized(CollationSorter.class) {
+                if(sDefault == null)
+                    sDefault = new CollationSorter(DEFAULT_CACHE_SIZE, DEFAULT_PARALLEL_THRESHOLD,
+                            Runtime.getRuntime().availableProcessors());
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * 构造方法
+     * @param cacheSize         缓存的排序键个数
+     *                          number of cached sort keys
+     * @param parallelThreshold 元素数不小于该值时并行排序
+     *                          minimum size sorted in parallel
+     * @param threadCount       并行排序的线程数
+     */
+    public CollationSorter(int cacheSize, int parallelThreshold, int threadCount) {
+        this.cache = new LruCache<String, byte[]>(cacheSize);
+        this.parallelThreshold = parallelThreshold;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * 按字符串排序
+     */
+    public void sortStrings(List<String> list) {
+        sort(list, IDENTITY);
+    }
+
+    /**
+     * 按应用名称排序，应用名称未加载时会在此时加载
+     * Sort apps by label. Labels not loaded yet are loaded now.
+     */
+    public void sortAppInfos(List<AppInfo> list) {
+        sort(list, APP_NAME);
+    }
+
+    /**
+     * 按extractor返回的字符串排序，null排在最前
+     * Sort by the strings returned by the extractor. Nulls come first.
+     */
+    public <T> void sort(List<T> list, KeyExtractor<? super T> extractor) {
+        int size = list.size();
+        if(size < 2)
+            return;
+        Entry[] entries = new Entry[size];
+        synchronized(this) {
+            checkLocale();
+            for(int i = 0; i < size; i++) {
+                T item = list.get(i);
+                entries[i] = new Entry(sortKey(extractor.getKey(item)), item, i);
+            }
+        }
+
+        if(size >= parallelThreshold && threadCount > 1)
+            parallelSort(entries);
+        else
+            Arrays.sort(entries, ENTRY_ORDER);
+
+        for(int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) entries[i].item;
+            list.set(i, item);
+        }
+    }
+
+    /**
+     * 获取字符串的排序键，两个排序键按无符号字节逐个比较即为按当前语言比较的结果
+     * Get the sort key of a string. Comparing two keys as unsigned bytes matches the locale's order.
+     */
+    public synchronized byte[] getSortKey(String text) {
+        checkLocale();
+        return sortKey(text);
+    }
+
+    /**
+     * 清空排序键缓存
+     * Drop all cached sort keys.
+     */
+    public synchronized void invalidate() {
+        cache.evictAll();
+        collator = null;
+        locale = null;
+    }
+
+    private byte[] sortKey(String text) {
+        if(text == null)
+            return new byte[0];
+        byte[] key = cache.get(text);
+        if(key == null) {
+            key = collator.getCollationKey(text).toByteArray();
+            cache.put(text, key);
+        }
+        return key;
+    }
+
+    /**
+     * 系统语言变化时重建Collator并清空缓存
+     */
+    private void checkLocale() {
+        Locale current = Locale.getDefault();
+        if(collator == null || !current.equals(locale)) {
+            cache.evictAll();
+            locale = current;
+            collator = Collator.getInstance(current);
+        }
+    }
+
+    /**
+     * 分段并行排序，再逐轮两两归并
+     */
+    private void parallelSort(final Entry[] entries) {
+        ExecutorService pool = getExecutor();
+        int n = entries.length;
+        int chunk = (n + threadCount - 1) / threadCount;
+        List<Future<?>> futures = new ArrayList<Future<?>>(threadCount);
+        for(int from = 0; from < n; from += chunk) {
+            final int start = from;
+            final int end = Math.min(from + chunk, n);
+            futures.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    Arrays.sort(entries, start, end, ENTRY_ORDER);
+                }
+            }));
+        }
+        await(futures);
+
+        Entry[] src = entries;
+        Entry[] dst = new Entry[n];
+        for(int width = chunk; width < n; width <<= 1) {
+            futures.clear();
+            for(int from = 0; from < n; from += width << 1) {
+                final Entry[] a = src, b = dst;
+                final int lo = from;
+                final int mid = Math.min(from + width, n);
+                final int hi = Math.min(from + (width << 1), n);
+                futures.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        merge(a, b, lo, mid, hi);
+                    }
+                }));
+            }
+            await(futures);
+            Entry[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if(src != entries)
+            System.arraycopy(src, 0, entries, 0, n);
+    }
+
+    private static void merge(Entry[] src, Entry[] dst, int lo, int mid, int hi) {
+        int i = lo, j = mid, k = lo;
+        while(i < mid && j < hi)
+            dst[k++] = ENTRY_ORDER.compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+        while(i < mid)
+            dst[k++] = src[i++];
+        while(j < hi)
+            dst[k++] = src[j++];
+    }
+
+    private static void await(List<Future<?>> futures) {
+        try {
+            for(Future<?> future : futures)
+                future.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CollationSorter -- interrupted", e);
+        } catch(ExecutionException e) {
+            throw new IllegalStateException("CollationSorter -- sort failed", e.getCause());
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if(executor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new SorterThreadFactory());
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    private static class Entry {
+        final byte[] key;
+        final Object item;
+        final int index;
+
+        Entry(byte[] key, Object item, int index) {
+            this.key = key;
+            this.item = item;
+            this.index = index;
+        }
+    }
+
+    private static class SorterThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "CollationSorter-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
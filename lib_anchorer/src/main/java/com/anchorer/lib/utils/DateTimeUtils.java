@@ -0,0 +1,384 @@
+package com.anchorer.lib.utils;
+
+import android.annotation.SuppressLint;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utility: DateTimeUtils
+ * 日期时间格式化与解析。
+ * 1. 只由yyyy、MM、dd、HH、mm、ss、SSS和非字母分隔符组成的格式（如"yyyy-MM-dd HH:mm:ss"、"MM-dd"）走快速路径，
+ *    直接计算各字段并写入字符数组，不创建SimpleDateFormat、Date或Calendar；
+ * 2. 其他格式使用按格式缓存、线程独享的SimpleDateFormat；
+ * 3. 每次调用都使用当前的默认时区，系统时区或语言变化后缓存的SimpleDateFormat自动重建；
+ *    快速路径只处理1583至9999年（公历），范围之外的时间交给SimpleDateFormat，结果与其一致。
+ * Date/time formatting and parsing.
+ * 1. Patterns made only of yyyy, MM, dd, HH, mm, ss, SSS and non-letter separators, such as
+ *    "yyyy-MM-dd HH:mm:ss" or "MM-dd", take a fast path computing the fields straight into a char
+ *    array, with no SimpleDateFormat, Date or Calendar.
+ * 2. Other patterns use per-pattern cached, thread-confined SimpleDateFormats;
+ * 3. Every call uses the current default time zone; cached SimpleDateFormats are rebuilt when the
+ *    time zone or locale changes. The fast path only covers the Gregorian years 1583 to 9999; other
+ *    times go through SimpleDateFormat, so results always match it.
+ */
+public class DateTimeUtils {
+    private static final int FIELD_LITERAL = 0;
+    private static final int FIELD_YEAR = 1;
+    private static final int FIELD_MONTH = 2;
+    private static final int FIELD_DAY = 3;
+    private static final int FIELD_HOUR = 4;
+    private static final int FIELD_MINUTE = 5;
+    private static final int FIELD_SECOND = 6;
+    private static final int FIELD_MILLIS = 7;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    //快速路径支持的年份范围：GregorianCalendar在1582年10月之前使用儒略历，四位年份最大为9999
+    private static final int MIN_FAST_YEAR = 1583;
+    private static final int MAX_FAST_YEAR = 9999;
+
+    //无法走快速路径的格式
+    private static final FastPattern UNSUPPORTED = new FastPattern(new int[0], new char[0], 0);
+    private static final Map<String, FastPattern> sFastPatterns = new ConcurrentHashMap<String, FastPattern>();
+
+    //每个线程独享的SimpleDateFormat，按格式缓存
+    private static final ThreadLocal<Map<String, SimpleDateFormat>> sFormats = new ThreadLocal<Map<String, SimpleDateFormat>>() {
+        @Override
+        protected Map<String, SimpleDateFormat> initialValue() {
+            return new HashMap<String, SimpleDateFormat>(4);
+        }
+    };
+    //每个线程复用的格式化字符缓冲区
+    private static final ThreadLocal<char[]> sCharBuffer = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[64];
+        }
+    };
+
+    //线程缓存的SimpleDateFormat所用的时区和语言，与当前默认值不一致时重建
+    private static final ThreadLocal<Object[]> sThreadDefaults = new ThreadLocal<Object[]>() {
+        @Override
+        protected Object[] initialValue() {
+            return new Object[2];
+        }
+    };
+
+    /**
+     * 将时间戳按指定格式转换成字符串
+     * Format a time stamp (ms) by a pattern.
+     */
+    public static String format(long stamp, String pattern) {
+        FastPattern fast = getFastPattern(pattern);
+        if(fast != UNSUPPORTED) {
+            char[] buffer = getCharBuffer(fast.maxLength);
+            int length = fast.format(stamp, TimeZone.getDefault(), buffer, 0);
+            if(length >= 0)
+                return new String(buffer, 0, length);
+        }
+        return getThreadFormat(pattern).format(new Date(stamp));
+    }
+
+    /**
+     * 将时间戳按指定格式追加到StringBuilder，快速路径不创建String、Date和SimpleDateFormat
+     * Format a time stamp (ms) by a pattern and append it to a StringBuilder.
+     * The fast path creates no String, Date or SimpleDateFormat.
+     */
+    public static StringBuilder format(long stamp, String pattern, StringBuilder out) {
+        FastPattern fast = getFastPattern(pattern);
+        if(fast != UNSUPPORTED) {
+            char[] buffer = getCharBuffer(fast.maxLength);
+            int length = fast.format(stamp, TimeZone.getDefault(), buffer, 0);
+            if(length >= 0)
+                return out.append(buffer, 0, length);
+        }
+        return out.append(getThreadFormat(pattern).format(new Date(stamp)));
+    }
+
+    /**
+     * 将时间戳按指定格式写入字符数组，只支持快速路径的格式；年份超出快速路径范围时结果可能更长
+     * Format a time stamp (ms) into a char array. Fast-path patterns only. Years outside the fast
+     * path range may produce longer output.
+     *
+     * @return  Number of chars written
+     * @throws IllegalArgumentException if the pattern has no fast path
+     */
+    public static int format(long stamp, String pattern, char[] out, int offset) {
+        FastPattern fast = getFastPattern(pattern);
+        if(fast == UNSUPPORTED)
+            throw new IllegalArgumentException("DateTimeUtils -- no fast path for pattern: " + pattern);
+        int length = fast.format(stamp, TimeZone.getDefault(), out, offset);
+        if(length >= 0)
+            return length;
+        String formatted = getThreadFormat(pattern).format(new Date(stamp));
+        formatted.getChars(0, formatted.length(), out, offset);
+        return formatted.length();
+    }
+
+    /**
+     * 批量格式化时间戳
+     * Format a batch of time stamps (ms) by one pattern.
+     */
+    public static String[] format(long[] stamps, String pattern) {
+        String[] results = new String[stamps.length];
+        FastPattern fast = getFastPattern(pattern);
+        TimeZone timeZone = TimeZone.getDefault();
+        char[] buffer = fast != UNSUPPORTED ? getCharBuffer(fast.maxLength) : null;
+        SimpleDateFormat format = null;
+        Date date = null;
+        for(int i = 0; i < stamps.length; i++) {
+            int length = buffer != null ? fast.format(stamps[i], timeZone, buffer, 0) : -1;
+            if(length >= 0) {
+                results[i] = new String(buffer, 0, length);
+                continue;
+            }
+            if(format == null) {
+                format = getThreadFormat(pattern);
+                date = new Date();
+            }
+            date.setTime(stamps[i]);
+            results[i] = format.format(date);
+        }
+        return results;
+    }
+
+    /**
+     * 按指定格式解析日期字符串，返回以ms为单位的时间戳
+     * Parse a date string by a pattern into a time stamp (ms).
+     *
+     * @throws ParseException if the string does not match the pattern
+     */
+    public static long parse(CharSequence dateStr, String pattern) throws ParseException {
+        FastPattern fast = getFastPattern(pattern);
+        if(fast != UNSUPPORTED) {
+            long stamp = fast.parse(dateStr, TimeZone.getDefault());
+            if(stamp != Long.MIN_VALUE)
+                return stamp;
+            //快速路径要求字段位数严格一致且年份在范围内，失败时交给宽松的SimpleDateFormat
+        }
+        return getThreadFormat(pattern).parse(dateStr.toString()).getTime();
+    }
+
+    /**
+     * 获取当前线程独享的SimpleDateFormat，默认时区或语言变化后重建
+     */
+    @SuppressLint("SimpleDateFormat")
+    private static SimpleDateFormat getThreadFormat(String pattern) {
+        Map<String, SimpleDateFormat> formats = sFormats.get();
+        Object[] defaults = sThreadDefaults.get();
+        String timeZoneId = TimeZone.getDefault().getID();
+        Locale locale = Locale.getDefault();
+        if(!timeZoneId.equals(defaults[0]) || !locale.equals(defaults[1])) {
+            formats.clear();
+            defaults[0] = timeZoneId;
+            defaults[1] = locale;
+        }
+        SimpleDateFormat format = formats.get(pattern);
+        if(format == null) {
+            format = new SimpleDateFormat(pattern);
+            formats.put(pattern, format);
+        }
+        return format;
+    }
+
+    private static char[] getCharBuffer(int capacity) {
+        char[] buffer = sCharBuffer.get();
+        if(buffer.length < capacity) {
+            buffer = new char[capacity];
+            sCharBuffer.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static FastPattern getFastPattern(String pattern) {
+        FastPattern fast = sFastPatterns.get(pattern);
+        if(fast == null) {
+            fast = compile(pattern);
+            sFastPatterns.put(pattern, fast);
+        }
+        return fast;
+    }
+
+    /**
+     * 将格式编译成字段序列，含不支持的字段时返回UNSUPPORTED
+     */
+    private static FastPattern compile(String pattern) {
+        int length = pattern.length();
+        int[] fields = new int[length];
+        char[] literals = new char[length];
+        int count = 0;
+        int maxLength = 0;
+        int i = 0;
+        while(i < length) {
+            char c = pattern.charAt(i);
+            int run = 1;
+            while(i + run < length && pattern.charAt(i + run) == c)
+                run++;
+            if(!Character.isLetter(c) && c != '\'') {
+                for(int j = 0; j < run; j++) {
+                    fields[count] = FIELD_LITERAL;
+                    literals[count++] = c;
+                }
+                maxLength += run;
+            } else {
+                int field = fieldOf(c, run);
+                if(field == FIELD_LITERAL)
+                    return UNSUPPORTED;
+                fields[count++] = field;
+                maxLength += run;
+            }
+            i += run;
+        }
+        int[] compactFields = new int[count];
+        char[] compactLiterals = new char[count];
+        System.arraycopy(fields, 0, compactFields, 0, count);
+        System.arraycopy(literals, 0, compactLiterals, 0, count);
+        return new FastPattern(compactFields, compactLiterals, maxLength);
+    }
+
+    private static int fieldOf(char c, int run) {
+        switch(c) {
+            case 'y': return run == 4 ? FIELD_YEAR : FIELD_LITERAL;
+            case 'M': return run == 2 ? FIELD_MONTH : FIELD_LITERAL;
+            case 'd': return run == 2 ? FIELD_DAY : FIELD_LITERAL;
+            case 'H': return run == 2 ? FIELD_HOUR : FIELD_LITERAL;
+            case 'm': return run == 2 ? FIELD_MINUTE : FIELD_LITERAL;
+            case 's': return run == 2 ? FIELD_SECOND : FIELD_LITERAL;
+            case 'S': return run == 3 ? FIELD_MILLIS : FIELD_LITERAL;
+            default: return FIELD_LITERAL;
+        }
+    }
+
+    /**
+     * 编译后的快速格式
+     */
+    private static class FastPattern {
+        final int[] fields;
+        final char[] literals;
+        final int maxLength;
+
+        FastPattern(int[] fields, char[] literals, int maxLength) {
+            this.fields = fields;
+            this.literals = literals;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * @return  Number of chars written, or -1 if the year is out of the fast path range
+         */
+        int format(long stamp, TimeZone timeZone, char[] out, int offset) {
+            long local = stamp + timeZone.getOffset(stamp);
+            long days = floorDiv(local, MILLIS_PER_DAY);
+            int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+
+            //由1970-01-01起的天数计算年月日（Howard Hinnant civil_from_days）
+            long z = days + 719468;
+            long era = floorDiv(z, 146097);
+            int dayOfEra = (int) (z - era * 146097);
+            int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+            int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            int mp = (5 * dayOfYear + 2) / 153;
+            int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+            int month = mp < 10 ? mp + 3 : mp - 9;
+            long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+            if(year < MIN_FAST_YEAR || year > MAX_FAST_YEAR)
+                return -1;
+
+            int pos = offset;
+            for(int i = 0; i < fields.length; i++) {
+                switch(fields[i]) {
+                    case FIELD_LITERAL: out[pos++] = literals[i]; break;
+                    case FIELD_YEAR: pos = putDigits((int) year, 4, out, pos); break;
+                    case FIELD_MONTH: pos = putDigits(month, 2, out, pos); break;
+                    case FIELD_DAY: pos = putDigits(day, 2, out, pos); break;
+                    case FIELD_HOUR: pos = putDigits(millisOfDay / 3600000, 2, out, pos); break;
+                    case FIELD_MINUTE: pos = putDigits(millisOfDay / 60000 % 60, 2, out, pos); break;
+                    case FIELD_SECOND: pos = putDigits(millisOfDay / 1000 % 60, 2, out, pos); break;
+                    case FIELD_MILLIS: pos = putDigits(millisOfDay % 1000, 3, out, pos); break;
+                }
+            }
+            return pos - offset;
+        }
+
+        /**
+         * @return  Time stamp in ms, or Long.MIN_VALUE if the string does not match exactly
+         */
+        long parse(CharSequence str, TimeZone timeZone) {
+            int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, millis = 0;
+            int pos = 0;
+            int length = str.length();
+            for(int i = 0; i < fields.length; i++) {
+                int field = fields[i];
+                if(field == FIELD_LITERAL) {
+                    if(pos >= length || str.charAt(pos) != literals[i])
+                        return Long.MIN_VALUE;
+                    pos++;
+                    continue;
+                }
+                int digits = field == FIELD_YEAR ? 4 : field == FIELD_MILLIS ? 3 : 2;
+                int value = parseDigits(str, pos, digits);
+                if(value < 0)
+                    return Long.MIN_VALUE;
+                pos += digits;
+                switch(field) {
+                    case FIELD_YEAR: year = value; break;
+                    case FIELD_MONTH: month = value; break;
+                    case FIELD_DAY: day = value; break;
+                    case FIELD_HOUR: hour = value; break;
+                    case FIELD_MINUTE: minute = value; break;
+                    case FIELD_SECOND: second = value; break;
+                    case FIELD_MILLIS: millis = value; break;
+                }
+            }
+            if(pos != length || month < 1 || month > 12 || day < 1 || day > 31 || year < MIN_FAST_YEAR)
+                return Long.MIN_VALUE;
+
+            //由年月日计算1970-01-01起的天数（Howard Hinnant days_from_civil）
+            int y = month <= 2 ? year - 1 : year;
+            long era = floorDiv(y, 400);
+            int yearOfEra = (int) (y - era * 400);
+            int mp = month > 2 ? month - 3 : month + 9;
+            int dayOfYear = (153 * mp + 2) / 5 + day - 1;
+            int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+            long days = era * 146097 + dayOfEra - 719468;
+
+            long local = days * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L + second * 1000L + millis;
+            long stamp = local - timeZone.getOffset(local - timeZone.getRawOffset());
+            return stamp;
+        }
+    }
+
+    private static int putDigits(int value, int digits, char[] out, int pos) {
+        for(int i = pos + digits - 1; i >= pos; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + digits;
+    }
+
+    private static int parseDigits(CharSequence str, int pos, int digits) {
+        if(pos + digits > str.length())
+            return -1;
+        int value = 0;
+        for(int i = pos; i < pos + digits; i++) {
+            char c = str.charAt(i);
+            if(c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        if((x % y != 0) && ((x ^ y) < 0))
+            q--;
+        return q;
+    }
+}
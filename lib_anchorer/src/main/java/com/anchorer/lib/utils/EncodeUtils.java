@@ -4,15 +4,33 @@ import android.annotation.SuppressLint;
 import android.graphics.Bitmap;
 import android.graphics.Bitmap.CompressFormat;
 import android.util.Base64;
+import android.util.Base64InputStream;
+import android.util.Base64OutputStream;
 
 import com.anchorer.lib.consts.LibConst;
+import com.anchorer.lib.io.AsciiReaderInputStream;
+import com.anchorer.lib.io.AsciiWriterOutputStream;
+import com.anchorer.lib.io.ByteBufferOutputStream;
+import com.anchorer.lib.io.CountingOutputStream;
+import com.anchorer.lib.io.PooledByteArrayOutputStream;
 
 import java.io.ByteArrayOutputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Utils Class about encoding and decoding.
@@ -21,6 +39,51 @@ import java.util.regex.Pattern;
  * @author Anchorer
  */
 public class EncodeUtils {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    //xxHash64所用的常量
+    private static final long XXH_PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long XXH_PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long XXH_PRIME3 = 0x165667B19E3779F9L;
+    private static final long XXH_PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long XXH_PRIME5 = 0x27D4EB2F165667C5L;
+
+    //流式摘要的读缓冲区大小
+    private static final int DIGEST_BUFFER_SIZE = 16 * 1024;
+    //超过该大小的文件使用内存映射方式读取
+    private static final long DIGEST_MAPPED_THRESHOLD = 1024 * 1024;
+    //内存映射读取时每次映射的区域大小
+    private static final long DIGEST_MAPPED_REGION = 8 * 1024 * 1024;
+
+    //每个线程复用的MessageDigest实例，按算法名缓存
+    private static final ThreadLocal<Map<String, MessageDigest>> sDigests = new ThreadLocal<Map<String, MessageDigest>>() {
+        @Override
+        protected Map<String, MessageDigest> initialValue() {
+            return new HashMap<String, MessageDigest>(4);
+        }
+    };
+    //每个线程复用的摘要结果缓冲区，足够容纳SHA-512
+    private static final ThreadLocal<byte[]> sDigestOutput = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[64];
+        }
+    };
+    //每个线程复用的UTF-8编码缓冲区，按需扩容
+    private static final ThreadLocal<byte[]> sUtf8Buffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[256];
+        }
+    };
+    //每个线程复用的读缓冲区
+    private static final ThreadLocal<ByteBuffer> sDigestBuffer = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.wrap(new byte[DIGEST_BUFFER_SIZE]);
+        }
+    };
+
 	/**
 	 * MD5加密
      * MD5 Encoding
@@ -28,22 +91,7 @@ public class EncodeUtils {
      * @return  Encoded String
 	 */
 	public static String md5(String string) {
-		byte[] hash;
-		try {
-			hash = MessageDigest.getInstance("MD5").digest(string.getBytes(LibConst.ENCODING_UTF_8));
-		} catch(NoSuchAlgorithmException e) {
-			throw new RuntimeException("MD5 should be supported?", e);
-		} catch(UnsupportedEncodingException e) {
-			throw new RuntimeException("UTF-8 should be supported?", e);
-		}
-		
-		StringBuilder hex = new StringBuilder(hash.length * 2);
-		for(byte b : hash) {
-			if((b & 0xFF) < 0x10)
-				hex.append("0");
-			hex.append(Integer.toHexString(b & 0xFF));
-		}
-		return hex.toString();
+		return hashToHexString(string, LibConst.DIGEST_MD5);
 	}
 
     /**
@@ -55,28 +103,343 @@ public class EncodeUtils {
             L.w(LibConst.LOG, "EncodeUtils -- SHA1: content is null.");
             return "";
         }
+        return hashToHexString(content, LibConst.DIGEST_SHA1);
+    }
+
+    /**
+     * 对字符串的UTF-8编码计算摘要，并转换成十六进制字符串
+     */
+    private static String hashToHexString(CharSequence content, String algorithm) {
+        byte[] hash = sDigestOutput.get();
+        int length = hash(content, algorithm, hash, 0);
+        char[] hex = new char[length * 2];
+        toHex(hash, 0, length, hex, 0);
+        return new String(hex);
+    }
 
+    /**
+     * 对字符串的UTF-8编码计算摘要，结果写入调用方提供的数组，不产生临时对象
+     * Digest the UTF-8 bytes of a string into a caller-supplied array, without creating garbage.
+     *
+     * @param content   String to digest
+     * @param algorithm Digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     * @param out       Array receiving the raw digest
+     * @param offset    Start offset in out
+     * @return  Number of digest bytes written
+     */
+    public static int hash(CharSequence content, String algorithm, byte[] out, int offset) {
+        MessageDigest digest = getThreadDigest(algorithm);
+        byte[] utf8 = getUtf8Buffer(content.length() * 3);
+        digest.update(utf8, 0, encodeUtf8(content, utf8, 0));
         try {
-            MessageDigest digest = java.security.MessageDigest
-                    .getInstance("SHA-1");
-            digest.update(content.getBytes());
-            byte messageDigest[] = digest.digest();
-            // Create Hex String
-            StringBuffer hexString = new StringBuffer();
-            // 字节数组转换为 十六进制 数
-            for (int i = 0; i < messageDigest.length; i++) {
-                String shaHex = Integer.toHexString(messageDigest[i] & 0xFF);
-                if (shaHex.length() < 2) {
-                    hexString.append(0);
+            return digest.digest(out, offset, out.length - offset);
+        } catch(DigestException e) {
+            throw new IllegalArgumentException("EncodeUtils -- hash: output array too small for " + algorithm, e);
+        }
+    }
+
+    /**
+     * MD5加密，原始字节写入调用方提供的数组
+     * MD5 Encoding into a caller-supplied array of at least 16 bytes.
+     *
+     * @return  Number of bytes written, always 16
+     */
+    public static int md5(CharSequence content, byte[] out, int offset) {
+        return hash(content, LibConst.DIGEST_MD5, out, offset);
+    }
+
+    /**
+     * MD5加密，十六进制结果写入调用方提供的字符数组
+     * MD5 Encoding, lower-case hex written into a caller-supplied array of at least 32 chars.
+     *
+     * @return  Number of chars written, always 32
+     */
+    public static int md5(CharSequence content, char[] out, int offset) {
+        byte[] hash = sDigestOutput.get();
+        int length = hash(content, LibConst.DIGEST_MD5, hash, 0);
+        return toHex(hash, 0, length, out, offset) - offset;
+    }
+
+    /**
+     * MD5加密，十六进制结果追加到StringBuilder
+     * MD5 Encoding, lower-case hex appended to a StringBuilder.
+     */
+    public static StringBuilder md5(CharSequence content, StringBuilder out) {
+        byte[] hash = sDigestOutput.get();
+        return appendHex(hash, 0, hash(content, LibConst.DIGEST_MD5, hash, 0), out);
+    }
+
+    /**
+     * MD5加密，结果按大端序打包成两个long
+     * MD5 Encoding packed big-endian into two longs: out[0] holds bytes 0-7, out[1] holds bytes 8-15.
+     *
+     * @param out   Array of at least 2 longs
+     */
+    public static void md5(CharSequence content, long[] out) {
+        byte[] hash = sDigestOutput.get();
+        hash(content, LibConst.DIGEST_MD5, hash, 0);
+        out[0] = getLong(hash, 0);
+        out[1] = getLong(hash, 8);
+    }
+
+    /**
+     * 从字节数组中按大端序读取long
+     */
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for(int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * 获取当前线程复用的UTF-8编码缓冲区，容量不足时扩容
+     */
+    private static byte[] getUtf8Buffer(int capacity) {
+        byte[] buffer = sUtf8Buffer.get();
+        if(buffer.length < capacity) {
+            buffer = new byte[Math.max(capacity, buffer.length * 2)];
+            sUtf8Buffer.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * 将字符串按UTF-8编码写入字节数组，不成对的代理字符编码为'?'
+     * Encode a string as UTF-8 into a byte array. Unpaired surrogates are encoded as '?'.
+     *
+     * @param content   String to encode
+     * @param out       Destination array, needs at most content.length() * 3 bytes from offset
+     * @param offset    Start offset in out
+     * @return  Number of bytes written
+     */
+    public static int encodeUtf8(CharSequence content, byte[] out, int offset) {
+        int pos = offset;
+        for(int i = 0, n = content.length(); i < n; i++) {
+            char c = content.charAt(i);
+            if(c < 0x80) {
+                out[pos++] = (byte) c;
+            } else if(c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if(c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if(Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(content.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, content.charAt(++i));
+                out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                out[pos++] = '?';
+            }
+        }
+        return pos - offset;
+    }
+
+    /**
+     * 将字节转换成小写十六进制字符，写入字符数组
+     * Hex-encode bytes into a char array in lower case.
+     *
+     * @return  End offset in out
+     */
+    public static int toHex(byte[] bytes, int offset, int length, char[] out, int outOffset) {
+        int pos = outOffset;
+        for(int i = offset, end = offset + length; i < end; i++) {
+            out[pos++] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            out[pos++] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return pos;
+    }
+
+    /**
+     * 将字节转换成小写十六进制字符，追加到StringBuilder
+     * Hex-encode bytes in lower case and append them to a StringBuilder.
+     */
+    public static StringBuilder appendHex(byte[] bytes, int offset, int length, StringBuilder out) {
+        out.ensureCapacity(out.length() + length * 2);
+        for(int i = offset, end = offset + length; i < end; i++) {
+            out.append(HEX_DIGITS[(bytes[i] >> 4) & 0x0F]);
+            out.append(HEX_DIGITS[bytes[i] & 0x0F]);
+        }
+        return out;
+    }
+
+    /**
+     * 获取当前线程复用的MessageDigest实例，返回前已重置
+     * Get the MessageDigest instance cached for current thread, already reset.
+     *
+     * @param algorithm Digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     */
+    static MessageDigest getThreadDigest(String algorithm) {
+        Map<String, MessageDigest> digests = sDigests.get();
+        MessageDigest digest = digests.get(algorithm);
+        if(digest == null) {
+            try {
+                digest = MessageDigest.getInstance(algorithm);
+            } catch(NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException(algorithm + " should be supported?", e);
+            }
+            digests.put(algorithm, digest);
+        } else {
+            digest.reset();
+        }
+        return digest;
+    }
+
+    /**
+     * 对输入流计算摘要，读取至流末尾，不关闭流
+     * Digest an InputStream until EOF. The stream is not closed.
+     *
+     * @param in        InputStream to digest
+     * @param algorithm Digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     * @return  Raw digest bytes
+     */
+    public static byte[] digest(InputStream in, String algorithm) throws IOException {
+        MessageDigest digest = getThreadDigest(algorithm);
+        byte[] buffer = sDigestBuffer.get().array();
+        int read;
+        while((read = in.read(buffer, 0, buffer.length)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * 对文件计算摘要，大文件使用内存映射方式读取
+     * Digest a file. Large files are read through memory-mapped regions.
+     *
+     * @param file      File to digest
+     * @param algorithm Digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     * @return  Raw digest bytes
+     */
+    public static byte[] digest(File file, String algorithm) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            return digest(in.getChannel(), algorithm);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * 对FileChannel从当前位置到末尾的内容计算摘要，不关闭Channel
+     * Digest a FileChannel from its current position to the end. The channel is not closed.
+     *
+     * @param channel   FileChannel to digest
+     * @param algorithm Digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     * @return  Raw digest bytes
+     */
+    public static byte[] digest(FileChannel channel, String algorithm) throws IOException {
+        long position = channel.position();
+        long size = channel.size();
+        byte[] result = digest(channel, position, Math.max(0, size - position), algorithm);
+        channel.position(Math.max(position, size));
+        return result;
+    }
+
+    /**
+     * 对FileChannel的指定区域计算摘要，使用绝对位置读取，不改变Channel的position，可在多个线程中并发调用
+     * Digest a region of a FileChannel by absolute reads. The channel position is not changed,
+     * so several threads may digest different regions of the same channel at once.
+     *
+     * @param channel   FileChannel to digest
+     * @param position  Start position of the region
+     * @param length    Length of the region
+     * @param algorithm Digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     * @return  Raw digest bytes
+     */
+    public static byte[] digest(FileChannel channel, long position, long length, String algorithm) throws IOException {
+        MessageDigest digest = getThreadDigest(algorithm);
+        ByteBuffer buffer = sDigestBuffer.get();
+        byte[] array = buffer.array();
+        long end = position + length;
+
+        if(length >= DIGEST_MAPPED_THRESHOLD) {
+            while(position < end) {
+                long regionSize = Math.min(DIGEST_MAPPED_REGION, end - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+                while(region.hasRemaining()) {
+                    int count = Math.min(array.length, region.remaining());
+                    region.get(array, 0, count);
+                    digest.update(array, 0, count);
                 }
-                hexString.append(shaHex);
+                position += regionSize;
             }
-            return hexString.toString();
+        } else {
+            while(position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(array.length, end - position));
+                int read = channel.read(buffer, position);
+                if(read == -1)
+                    break;
+                digest.update(array, 0, read);
+                position += read;
+            }
+        }
+        return digest.digest();
+    }
 
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
+    /**
+     * 对ByteBuffer中剩余的内容计算摘要，不改变ByteBuffer的position
+     * Digest the remaining content of a ByteBuffer, without moving its position.
+     *
+     * @param data      ByteBuffer to digest
+     * @param algorithm Digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     * @return  Raw digest bytes
+     */
+    public static byte[] digest(ByteBuffer data, String algorithm) {
+        MessageDigest digest = getThreadDigest(algorithm);
+        if(data.hasArray()) {
+            digest.update(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        } else {
+            byte[] array = sDigestBuffer.get().array();
+            int position = data.position();
+            while(data.hasRemaining()) {
+                int length = Math.min(array.length, data.remaining());
+                data.get(array, 0, length);
+                digest.update(array, 0, length);
+            }
+            data.position(position);
         }
-        return "";
+        return digest.digest();
+    }
+
+    /**
+     * 计算文件的MD5值
+     * MD5 of a file
+     *
+     * @param file  File to digest
+     * @return  Hex string of MD5
+     */
+    public static String md5(File file) throws IOException {
+        return toHexString(digest(file, LibConst.DIGEST_MD5));
+    }
+
+    /**
+     * 计算文件的SHA1值
+     * SHA1 of a file
+     *
+     * @param file  File to digest
+     * @return  Hex string of SHA1
+     */
+    public static String sha1(File file) throws IOException {
+        return toHexString(digest(file, LibConst.DIGEST_SHA1));
+    }
+
+    /**
+     * 将字节数组转换成十六进制字符串
+     * Translate byte array to lower-case hex string
+     *
+     * @param bytes byte array
+     */
+    public static String toHexString(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        toHex(bytes, 0, bytes.length, hex, 0);
+        return new String(hex);
     }
 
 	/**
@@ -116,6 +479,89 @@ public class EncodeUtils {
 		return new String(result, encodingType);
 	}
 
+    /**
+     * 使用Base64算法对输入流进行流式加密，内存占用与数据大小无关，不关闭任何流
+     * Stream-encode an InputStream by Base64 in fixed-size chunks. Neither stream is closed.
+     *
+     * @param in    Source stream
+     * @param out   Destination of Base64 text bytes
+     * @param flags Flags of {@link Base64}, such as {@link Base64#NO_WRAP} or {@link Base64#URL_SAFE}
+     * @return  Number of source bytes encoded
+     */
+    public static long encodeWithBase64(InputStream in, OutputStream out, int flags) throws IOException {
+        Base64OutputStream encoder = new Base64OutputStream(out, flags | Base64.NO_CLOSE);
+        long total = IOUtils.copy(in, encoder);
+        //关闭时写出末尾的填充字符，NO_CLOSE保证不关闭out
+        encoder.close();
+        return total;
+    }
+
+    /**
+     * 使用Base64算法对输入流进行流式加密，结果写入Writer，不关闭任何流
+     * Stream-encode an InputStream by Base64 into a Writer. Neither stream is closed.
+     */
+    public static long encodeWithBase64(InputStream in, Writer out, int flags) throws IOException {
+        long total = encodeWithBase64(in, new AsciiWriterOutputStream(out), flags);
+        out.flush();
+        return total;
+    }
+
+    /**
+     * 使用Base64算法对输入流进行流式加密，结果直接写入ByteBuffer（可以是Direct Buffer）
+     * Stream-encode an InputStream by Base64 straight into a (possibly direct) ByteBuffer.
+     * Use {@link #getBase64EncodedLength(long, int)} to size the buffer.
+     *
+     * @throws IOException if the buffer has not enough space
+     */
+    public static long encodeWithBase64(InputStream in, ByteBuffer out, int flags) throws IOException {
+        return encodeWithBase64(in, new ByteBufferOutputStream(out), flags);
+    }
+
+    /**
+     * 使用Base64算法对输入流进行流式解密，内存占用与数据大小无关，不关闭任何流
+     * Stream-decode Base64 text from an InputStream in fixed-size chunks. Neither stream is closed.
+     *
+     * @param in    Source of Base64 text bytes
+     * @param out   Destination of decoded bytes
+     * @param flags Flags of {@link Base64}, {@link Base64#URL_SAFE} for URL-safe alphabet
+     * @return  Number of decoded bytes
+     */
+    public static long decodeWithBase64(InputStream in, OutputStream out, int flags) throws IOException {
+        return IOUtils.copy(new Base64InputStream(in, flags), out);
+    }
+
+    /**
+     * 使用Base64算法对Reader中的文本进行流式解密，不关闭任何流
+     * Stream-decode Base64 text from a Reader. Neither stream is closed.
+     */
+    public static long decodeWithBase64(Reader in, OutputStream out, int flags) throws IOException {
+        return decodeWithBase64(new AsciiReaderInputStream(in), out, flags);
+    }
+
+    /**
+     * 计算Base64加密后的长度
+     * Get the length of Base64 output for a given input length and flags.
+     *
+     * @param length    Source length in bytes
+     * @param flags     Flags of {@link Base64}
+     */
+    public static long getBase64EncodedLength(long length, int flags) {
+        long encodedLength = length / 3 * 4;
+        long remainder = length % 3;
+        if((flags & Base64.NO_PADDING) == 0) {
+            if(remainder > 0)
+                encodedLength += 4;
+        } else if(remainder > 0) {
+            encodedLength += remainder + 1;
+        }
+        if((flags & Base64.NO_WRAP) == 0 && length > 0) {
+            //每行76个字符（19组）后换行
+            long lines = (length - 1) / (3 * 19) + 1;
+            encodedLength += lines * ((flags & Base64.CRLF) != 0 ? 2 : 1);
+        }
+        return encodedLength;
+    }
+
 	/**
 	 * 对Bitmap对象使用Base64进行加密
      * Encode Bitmap object by Base64
@@ -125,12 +571,48 @@ public class EncodeUtils {
 	 * @throws Exception
 	 */
 	public static String encodeBitmapWithBase64(Bitmap bitmap) throws Exception {
-		ByteArrayOutputStream stream = new ByteArrayOutputStream();
-		bitmap.compress(CompressFormat.PNG, 100, stream);
-		byte[] bytes = stream.toByteArray();
-		return encodeWithBase64(bytes);
+		PooledByteArrayOutputStream buffer = PooledByteArrayOutputStream.obtain();
+		try {
+			encodeBitmapWithBase64(bitmap, CompressFormat.PNG, 100, buffer, Base64.DEFAULT);
+			return buffer.toString("US-ASCII");
+		} finally {
+			buffer.recycle();
+		}
 	}
 
+    /**
+     * 将Bitmap压缩后直接经Base64编码写入目标流，不产生中间拷贝，不关闭目标流
+     * Compress a Bitmap and Base64-encode it straight into a sink, without intermediate copies.
+     * The sink is not closed.
+     *
+     * @param bitmap    Bitmap object to encode
+     * @param format    Compress format
+     * @param quality   Compress quality, 0-100
+     * @param sink      Destination of Base64 text bytes
+     * @param flags     Flags of {@link Base64}
+     * @return  Number of Base64 bytes written to sink
+     */
+    public static long encodeBitmapWithBase64(Bitmap bitmap, CompressFormat format, int quality, OutputStream sink, int flags) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(sink);
+        Base64OutputStream encoder = new Base64OutputStream(counter, flags | Base64.NO_CLOSE);
+        if(!bitmap.compress(format, quality, encoder))
+            throw new IOException("EncodeUtils -- encodeBitmapWithBase64: compress failed.");
+        encoder.close();
+        return counter.getCount();
+    }
+
+    /**
+     * 计算Bitmap压缩并Base64编码后的长度，只计数不保存数据，可用于确定HTTP请求体的长度
+     * Get the Base64 length of a compressed Bitmap without keeping the data, e.g. to set Content-Length.
+     * The Bitmap is compressed once for this call.
+     */
+    public static long getBitmapBase64Length(Bitmap bitmap, CompressFormat format, int quality, int flags) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(null);
+        if(!bitmap.compress(format, quality, counter))
+            throw new IOException("EncodeUtils -- getBitmapBase64Length: compress failed.");
+        return getBase64EncodedLength(counter.getCount(), flags);
+    }
+
 	/**
 	 * 从Bitmap图片对象获取其码流
      * Get byte array stream from Bitmap object
@@ -143,15 +625,244 @@ public class EncodeUtils {
 		return stream.toByteArray();
 	}
 
+    /**
+     * 非加密的64位哈希（xxHash64），用于缓存键等场景，比MD5快得多且不产生临时对象
+     * Non-cryptographic 64-bit hash (xxHash64) for cache keys and the like.
+     * Much faster than MD5 and allocation-free.
+     *
+     * @param bytes     Data to hash
+     * @param offset    Start offset
+     * @param length    Number of bytes
+     * @param seed      Hash seed
+     */
+    public static long xxHash64(byte[] bytes, int offset, int length, long seed) {
+        int end = offset + length;
+        int pos = offset;
+        long hash;
+        if(length >= 32) {
+            long v1 = seed + XXH_PRIME1 + XXH_PRIME2;
+            long v2 = seed + XXH_PRIME2;
+            long v3 = seed;
+            long v4 = seed - XXH_PRIME1;
+            int limit = end - 32;
+            do {
+                v1 = xxhRound(v1, getLongLE(bytes, pos));
+                v2 = xxhRound(v2, getLongLE(bytes, pos + 8));
+                v3 = xxhRound(v3, getLongLE(bytes, pos + 16));
+                v4 = xxhRound(v4, getLongLE(bytes, pos + 24));
+                pos += 32;
+            } while(pos <= limit);
+            hash = xxhMergeLanes(v1, v2, v3, v4);
+        } else {
+            hash = seed + XXH_PRIME5;
+        }
+        hash += length;
+
+        while(pos + 8 <= end) {
+            hash = xxhMix8(hash, getLongLE(bytes, pos));
+            pos += 8;
+        }
+        if(pos + 4 <= end) {
+            hash = xxhMix4(hash, getIntLE(bytes, pos) & 0xFFFFFFFFL);
+            pos += 4;
+        }
+        while(pos < end) {
+            hash = xxhMix1(hash, bytes[pos++] & 0xFF);
+        }
+        return xxhAvalanche(hash);
+    }
+
+    /**
+     * xxHash64，种子为0
+     * xxHash64 of a whole byte array with seed 0.
+     */
+    public static long xxHash64(byte[] bytes) {
+        return xxHash64(bytes, 0, bytes.length, 0);
+    }
+
+    /**
+     * 对ByteBuffer中剩余的内容计算xxHash64，不拷贝数据，不改变position
+     * xxHash64 of the remaining content of a ByteBuffer, without copying or moving its position.
+     */
+    public static long xxHash64(ByteBuffer buffer, long seed) {
+        if(buffer.hasArray())
+            return xxHash64(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), seed);
+
+        boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        int pos = buffer.position();
+        int end = buffer.limit();
+        int length = end - pos;
+        long hash;
+        if(length >= 32) {
+            long v1 = seed + XXH_PRIME1 + XXH_PRIME2;
+            long v2 = seed + XXH_PRIME2;
+            long v3 = seed;
+            long v4 = seed - XXH_PRIME1;
+            int limit = end - 32;
+            do {
+                v1 = xxhRound(v1, getLongLE(buffer, pos, littleEndian));
+                v2 = xxhRound(v2, getLongLE(buffer, pos + 8, littleEndian));
+                v3 = xxhRound(v3, getLongLE(buffer, pos + 16, littleEndian));
+                v4 = xxhRound(v4, getLongLE(buffer, pos + 24, littleEndian));
+                pos += 32;
+            } while(pos <= limit);
+            hash = xxhMergeLanes(v1, v2, v3, v4);
+        } else {
+            hash = seed + XXH_PRIME5;
+        }
+        hash += length;
+
+        while(pos + 8 <= end) {
+            hash = xxhMix8(hash, getLongLE(buffer, pos, littleEndian));
+            pos += 8;
+        }
+        if(pos + 4 <= end) {
+            int value = buffer.getInt(pos);
+            hash = xxhMix4(hash, (littleEndian ? value : Integer.reverseBytes(value)) & 0xFFFFFFFFL);
+            pos += 4;
+        }
+        while(pos < end) {
+            hash = xxhMix1(hash, buffer.get(pos++) & 0xFF);
+        }
+        return xxhAvalanche(hash);
+    }
+
+    /**
+     * 对字符串计算xxHash64，直接读取字符，不做编码转换和拷贝；
+     * 结果与对其UTF-16LE编码的字节计算xxHash64相同
+     * xxHash64 of a string, read char by char without encoding or copying.
+     * Equal to the xxHash64 of its UTF-16LE bytes.
+     */
+    public static long xxHash64(CharSequence str, int start, int end, long seed) {
+        int pos = start;
+        int length = (end - start) * 2;
+        long hash;
+        if(length >= 32) {
+            long v1 = seed + XXH_PRIME1 + XXH_PRIME2;
+            long v2 = seed + XXH_PRIME2;
+            long v3 = seed;
+            long v4 = seed - XXH_PRIME1;
+            int limit = end - 16;
+            do {
+                v1 = xxhRound(v1, getLong(str, pos));
+                v2 = xxhRound(v2, getLong(str, pos + 4));
+                v3 = xxhRound(v3, getLong(str, pos + 8));
+                v4 = xxhRound(v4, getLong(str, pos + 12));
+                pos += 16;
+            } while(pos <= limit);
+            hash = xxhMergeLanes(v1, v2, v3, v4);
+        } else {
+            hash = seed + XXH_PRIME5;
+        }
+        hash += length;
+
+        while(pos + 4 <= end) {
+            hash = xxhMix8(hash, getLong(str, pos));
+            pos += 4;
+        }
+        if(pos + 2 <= end) {
+            hash = xxhMix4(hash, str.charAt(pos) | ((long) str.charAt(pos + 1) << 16));
+            pos += 2;
+        }
+        if(pos < end) {
+            char c = str.charAt(pos);
+            hash = xxhMix1(hash, c & 0xFF);
+            hash = xxhMix1(hash, c >>> 8);
+        }
+        return xxhAvalanche(hash);
+    }
+
+    /**
+     * 对字符串计算xxHash64，种子为0
+     * xxHash64 of a whole string with seed 0.
+     */
+    public static long xxHash64(CharSequence str) {
+        return xxHash64(str, 0, str.length(), 0);
+    }
+
+    private static long xxhRound(long acc, long input) {
+        acc += input * XXH_PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * XXH_PRIME1;
+    }
+
+    private static long xxhMergeLanes(long v1, long v2, long v3, long v4) {
+        long hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+        hash = (hash ^ xxhRound(0, v1)) * XXH_PRIME1 + XXH_PRIME4;
+        hash = (hash ^ xxhRound(0, v2)) * XXH_PRIME1 + XXH_PRIME4;
+        hash = (hash ^ xxhRound(0, v3)) * XXH_PRIME1 + XXH_PRIME4;
+        hash = (hash ^ xxhRound(0, v4)) * XXH_PRIME1 + XXH_PRIME4;
+        return hash;
+    }
+
+    private static long xxhMix8(long hash, long lane) {
+        hash ^= xxhRound(0, lane);
+        return Long.rotateLeft(hash, 27) * XXH_PRIME1 + XXH_PRIME4;
+    }
+
+    private static long xxhMix4(long hash, long lane) {
+        hash ^= lane * XXH_PRIME1;
+        return Long.rotateLeft(hash, 23) * XXH_PRIME2 + XXH_PRIME3;
+    }
+
+    private static long xxhMix1(long hash, int value) {
+        hash ^= value * XXH_PRIME5;
+        return Long.rotateLeft(hash, 11) * XXH_PRIME1;
+    }
+
+    private static long xxhAvalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= XXH_PRIME2;
+        hash ^= hash >>> 29;
+        hash *= XXH_PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long getLongLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24
+                | (bytes[offset + 4] & 0xFFL) << 32
+                | (bytes[offset + 5] & 0xFFL) << 40
+                | (bytes[offset + 6] & 0xFFL) << 48
+                | (bytes[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static int getIntLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF)
+                | (bytes[offset + 1] & 0xFF) << 8
+                | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    private static long getLongLE(ByteBuffer buffer, int index, boolean littleEndian) {
+        long value = buffer.getLong(index);
+        return littleEndian ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * 读取4个字符组成的long，按UTF-16LE字节顺序
+     */
+    private static long getLong(CharSequence str, int index) {
+        return str.charAt(index)
+                | (long) str.charAt(index + 1) << 16
+                | (long) str.charAt(index + 2) << 32
+                | (long) str.charAt(index + 3) << 48;
+    }
+
 	/**
-	 * 将String字符串转换成Unicode
-     * String ==> Unicode
+	 * 将String字符串转换成Unicode，十六进制位数不补零（如"a"转换为\\u61），需要能被
+     * {@link #UnicodeToString(String)}还原时使用{@link UnicodeEscaper#escape(CharSequence, boolean)}
+     * String ==> Unicode. Hex digits are not zero-padded ("a" gives \\u61); use
+     * {@link UnicodeEscaper#escape(CharSequence, boolean)} for output {@link #UnicodeToString(String)} can read back.
      *
 	 * @param str	原始字符串
      *              Original String
 	 */
 	public static String StringToUnicode(String str) {
-        StringBuilder strBuilder = new StringBuilder();
+        StringBuilder strBuilder = new StringBuilder(str.length() * 6);
         for (int i = 0; i < str.length(); i++) {
             strBuilder.append("\\u").append(Integer.toHexString(str.charAt(i)));
         }
@@ -165,14 +876,7 @@ public class EncodeUtils {
 	 * @param str	Unicode String
 	 */
 	public static String UnicodeToString(String str) {
-        Pattern pattern = Pattern.compile("(\\\\u(\\p{XDigit}{4}))");
-        Matcher matcher = pattern.matcher(str);
-        char ch;
-        while (matcher.find()) {
-            ch = (char) Integer.parseInt(matcher.group(2), 16);
-            str = str.replace(matcher.group(1), ch + "");
-        }
-        return str;
+        return UnicodeEscaper.unescape(str);
 	}
 
 
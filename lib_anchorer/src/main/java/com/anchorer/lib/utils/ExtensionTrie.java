@@ -0,0 +1,118 @@
+package com.anchorer.lib.utils;
+
+/**
+ * Utility: ExtensionTrie
+ * 以文件扩展名为键的字典树，键不区分大小写（只对ASCII字母），可直接查询字符序列的某个区域，不创建子字符串。
+ * Trie keyed by file extension, ignoring ASCII case. Lookups take a region of any CharSequence,
+ * so no substring is created.
+ */
+public class ExtensionTrie<T> {
+    private final Node<T> root = new Node<T>();
+    private volatile int size;
+
+    /**
+     * 添加扩展名及其对应的值
+     * Map an extension, without the dot, to a value.
+     */
+    public synchronized void put(String extension, T value) {
+        Node<T> node = root;
+        for(int i = 0; i < extension.length(); i++) {
+            node = node.getOrCreateChild(CharSlice.toLowerAscii(extension.charAt(i)));
+        }
+        if(node.value == null)
+            size++;
+        node.value = value;
+    }
+
+    public T get(CharSequence extension) {
+        return get(extension, 0, extension.length());
+    }
+
+    /**
+     * 查询字符序列中[start, end)区域对应的值
+     * Look up the value of the chars in [start, end).
+     *
+     * @return  The value, or null if not mapped
+     */
+    public T get(CharSequence str, int start, int end) {
+        Node<T> node = root;
+        for(int i = start; i < end && node != null; i++) {
+            node = node.getChild(CharSlice.toLowerAscii(str.charAt(i)));
+        }
+        return node == null ? null : node.value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 字典树节点，子节点数量很少，使用数组线性查找。
+     * 键和子节点放在同一个不可变的Branches中，添加子节点时复制后整体替换volatile引用，
+     * 无锁读取的线程总能看到一致且初始化完成的键和子节点。
+     * Keys and children live in one immutable Branches, replaced as a whole through a volatile field
+     * when a child is added, so lock-free readers always see a consistent, fully built pair.
+     */
+    private static class Node<T> {
+        volatile Branches<T> branches = Branches.empty();
+        volatile T value;
+
+        Node<T> getChild(char c) {
+            Branches<T> current = branches;
+            char[] keys = current.keys;
+            for(int i = 0; i < keys.length; i++) {
+                if(keys[i] == c)
+                    return current.children[i];
+            }
+            return null;
+        }
+
+        /**
+         * 只在持有ExtensionTrie的锁时调用
+         */
+        Node<T> getOrCreateChild(char c) {
+            Node<T> child = getChild(c);
+            if(child != null)
+                return child;
+            child = new Node<T>();
+            branches = branches.with(c, child);
+            return child;
+        }
+    }
+
+    private static class Branches<T> {
+        private static final Branches<Object> EMPTY = new Branches<Object>(new char[0], Branches.<Object>newArray(0));
+
+        final char[] keys;
+        final Node<T>[] children;
+
+        Branches(char[] keys, Node<T>[] children) {
+            this.keys = keys;
+            this.children = children;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Branches<T> empty() {
+            return (Branches<T>) (Branches<?>) EMPTY;
+        }
+
+        /**
+         * 复制并追加一个子节点
+         */
+        Branches<T> with(char c, Node<T> child) {
+            int count = keys.length;
+            char[] newKeys = new char[count + 1];
+            System.arraycopy(keys, 0, newKeys, 0, count);
+            newKeys[count] = c;
+            Node<T>[] newChildren = newArray(count + 1);
+            System.arraycopy(children, 0, newChildren, 0, count);
+            newChildren[count] = child;
+            return new Branches<T>(newKeys, newChildren);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Node<T>[] newArray(int length) {
+            return (Node<T>[]) new Node[length];
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.anchorer.lib.utils;
+
+import com.anchorer.lib.collection.LongObjectMap;
+import com.anchorer.lib.consts.LibConst;
+import com.anchorer.lib.model.CacheKey;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility: FileDigestIndex
+ * 持久化的文件摘要索引，以(路径, 长度, 修改时间, 算法)为键保存摘要，只对元数据变化的文件重新计算。
+ * 索引文件使用紧凑的二进制格式，通过内存映射方式加载。
+ * 内存中以路径的{@link CacheKey}哈希值为键，查询不拼接字符串；同一哈希值下的索引项（不同算法或哈希冲突）组成链表。
+ * Persistent index of file digests keyed on (path, length, lastModified, algorithm). Only files whose
+ * metadata changed are hashed again. The index is a compact binary file loaded by memory mapping.
+ * In memory it is keyed on the {@link CacheKey} hash of the path, so lookups build no key strings;
+ * entries sharing a hash (other algorithms or collisions) are chained.
+ */
+public class FileDigestIndex {
+    private static final int MAGIC = 0x46444958; // "FDIX"
+    private static final int VERSION = 1;
+
+    private final File indexFile;
+    //路径的哈希值 -> 索引项链表
+    private final LongObjectMap<Entry> entries = new LongObjectMap<Entry>();
+    private int count;
+    private boolean dirty;
+
+    /**
+     * 构造方法，索引文件存在时立即加载
+     * @param indexFile 索引文件
+     *                  file storing the index, loaded now if it exists
+     */
+    public FileDigestIndex(File indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+
+    /**
+     * 获取文件摘要，文件长度和修改时间未变化时直接返回索引中的摘要，否则重新计算并更新索引
+     * Get the digest of a file. The indexed digest is returned if length and lastModified are
+     * unchanged, otherwise the file is hashed and the index updated.
+     *
+     * @param file      File to digest
+     * @param algorithm Digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     * @return  Raw digest bytes, or null if the file does not exist
+     */
+    public byte[] getDigest(File file, String algorithm) throws IOException {
+        String path = file.getAbsolutePath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        if(lastModified == 0) {
+            remove(file);
+            return null;
+        }
+
+        synchronized(this) {
+            Entry entry = find(path, algorithm);
+            if(entry != null && entry.length == length && entry.lastModified == lastModified)
+                return entry.digest;
+        }
+
+        byte[] digest = EncodeUtils.digest(file, algorithm);
+        synchronized(this) {
+            put(new Entry(path, algorithm, length, lastModified, digest));
+            dirty = true;
+        }
+        return digest;
+    }
+
+    /**
+     * 批量获取文件摘要，返回结果与输入顺序一致，不存在的文件对应null
+     * Get the digests of several files, in input order. Missing files map to null.
+     */
+    public List<byte[]> getDigests(List<File> files, String algorithm) throws IOException {
+        List<byte[]> digests = new ArrayList<byte[]>(files.size());
+        for(File file : files) {
+            digests.add(getDigest(file, algorithm));
+        }
+        return digests;
+    }
+
+    /**
+     * 只查询索引，不计算摘要；文件元数据变化时返回null
+     * Look up the index only, without hashing. Returns null if the file metadata changed.
+     */
+    public byte[] peekDigest(File file, String algorithm) {
+        Entry entry;
+        synchronized(this) {
+            entry = find(file.getAbsolutePath(), algorithm);
+        }
+        if(entry != null && entry.length == file.length() && entry.lastModified == file.lastModified())
+            return entry.digest;
+        return null;
+    }
+
+    /**
+     * 从索引中删除文件的所有摘要
+     * Remove all digests of a file from the index.
+     */
+    public synchronized void remove(File file) {
+        String path = file.getAbsolutePath();
+        if(removePath(CacheKey.hash(path), path) > 0)
+            dirty = true;
+    }
+
+    /**
+     * 删除已不存在的文件的摘要
+     * Remove the digests of files which no longer exist.
+     *
+     * @return  Number of removed entries
+     */
+    public synchronized int prune() {
+        int removed = 0;
+        //先取出所有键，删除时表中的元素会移动
+        for(long hash : entries.keys()) {
+            Entry entry = entries.get(hash);
+            while(entry != null) {
+                if(!new File(entry.path).exists()) {
+                    removed += removePath(hash, entry.path);
+                    //链表已重建，从头检查
+                    entry = entries.get(hash);
+                } else {
+                    entry = entry.next;
+                }
+            }
+        }
+        if(removed > 0)
+            dirty = true;
+        return removed;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 将索引写入文件，先写临时文件再重命名；索引未变化时不写入
+     * Write the index to disk through a temp file and a rename. Nothing is written if unchanged.
+     */
+    public void save() throws IOException {
+        List<Entry> snapshot;
+        synchronized(this) {
+            if(!dirty)
+                return;
+            snapshot = new ArrayList<Entry>(count);
+            for(int slot = entries.nextSlot(0); slot >= 0; slot = entries.nextSlot(slot + 1)) {
+                for(Entry entry = entries.valueAt(slot); entry != null; entry = entry.next)
+                    snapshot.add(entry);
+            }
+            dirty = false;
+        }
+
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        boolean success = false;
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for(Entry entry : snapshot) {
+                byte[] path = entry.path.getBytes(LibConst.ENCODING_UTF_8);
+                byte[] algorithm = entry.algorithm.getBytes(LibConst.ENCODING_UTF_8);
+                out.writeShort(path.length);
+                out.write(path);
+                out.writeByte(algorithm.length);
+                out.write(algorithm);
+                out.writeLong(entry.length);
+                out.writeLong(entry.lastModified);
+                out.writeByte(entry.digest.length);
+                out.write(entry.digest);
+            }
+            out.close();
+            success = tempFile.renameTo(indexFile);
+        } finally {
+            IOUtils.closeQuietly(out);
+            if(!success) {
+                tempFile.delete();
+                synchronized(this) {
+                    dirty = true;
+                }
+            }
+        }
+        if(!success)
+            throw new IOException("FileDigestIndex -- save: failed to write " + indexFile);
+    }
+
+    /**
+     * 通过内存映射方式加载索引文件，格式错误时丢弃整个索引
+     */
+    private void load() {
+        if(!indexFile.isFile())
+            return;
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(indexFile);
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                L.w(LibConst.LOG, "FileDigestIndex -- load: unknown format, " + indexFile);
+                return;
+            }
+            int entryCount = buffer.getInt();
+            for(int i = 0; i < entryCount; i++) {
+                byte[] path = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(path);
+                byte[] algorithm = new byte[buffer.get() & 0xFF];
+                buffer.get(algorithm);
+                long length = buffer.getLong();
+                long lastModified = buffer.getLong();
+                byte[] digest = new byte[buffer.get() & 0xFF];
+                buffer.get(digest);
+
+                Entry entry = new Entry(new String(path, LibConst.ENCODING_UTF_8), new String(algorithm, LibConst.ENCODING_UTF_8),
+                        length, lastModified, digest);
+                put(entry);
+            }
+        } catch(IOException e) {
+            L.w(LibConst.LOG, "FileDigestIndex -- load: IOException, " + indexFile, e);
+            entries.clear();
+            count = 0;
+        } catch(BufferUnderflowException e) {
+            L.w(LibConst.LOG, "FileDigestIndex -- load: truncated, " + indexFile, e);
+            entries.clear();
+            count = 0;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private Entry find(String path, String algorithm) {
+        for(Entry entry = entries.get(CacheKey.hash(path)); entry != null; entry = entry.next) {
+            if(entry.path.equals(path) && entry.algorithm.equals(algorithm))
+                return entry;
+        }
+        return null;
+    }
+
+    /**
+     * 加入索引项，替换同一路径、同一算法的旧索引项
+     */
+    private void put(Entry entry) {
+        long hash = CacheKey.hash(entry.path);
+        Entry head = entries.get(hash);
+        Entry previous = null;
+        for(Entry current = head; current != null; previous = current, current = current.next) {
+            if(current.path.equals(entry.path) && current.algorithm.equals(entry.algorithm)) {
+                if(previous == null)
+                    head = current.next;
+                else
+                    previous.next = current.next;
+                count--;
+                break;
+            }
+        }
+        entry.next = head;
+        entries.put(hash, entry);
+        count++;
+    }
+
+    /**
+     * 删除路径的所有索引项
+     * @return  删除的个数
+     */
+    private int removePath(long hash, String path) {
+        Entry head = null, tail = null;
+        int removed = 0;
+        for(Entry entry = entries.get(hash); entry != null; ) {
+            Entry next = entry.next;
+            if(entry.path.equals(path)) {
+                removed++;
+            } else {
+                entry.next = null;
+                if(tail == null)
+                    head = entry;
+                else
+                    tail.next = entry;
+                tail = entry;
+            }
+            entry = next;
+        }
+        if(head == null)
+            entries.remove(hash);
+        else
+            entries.put(hash, head);
+        count -= removed;
+        return removed;
+    }
+
+    /**
+     * 索引项
+     */
+    private static class Entry {
+        final String path;
+        final String algorithm;
+        final long length;
+        final long lastModified;
+        final byte[] digest;
+        //哈希值相同的下一个索引项
+        Entry next;
+
+        Entry(String path, String algorithm, long length, long lastModified, byte[] digest) {
+            this.path = path;
+            this.algorithm = algorithm;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
+}
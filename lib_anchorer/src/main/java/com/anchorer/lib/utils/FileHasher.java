@@ -0,0 +1,334 @@
+package com.anchorer.lib.utils;
+
+import com.anchorer.lib.collection.IntArrayList;
+import com.anchorer.lib.consts.LibConst;
+import com.anchorer.lib.model.FileDigest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility: FileHasher
+ * 并行文件摘要引擎：多个文件并行计算，大文件按块切分并行计算，各块摘要组成Merkle树。
+ * 文件部分修改或断点续传后，只需重新计算变化的块。
+ * Parallel file hashing: files are hashed concurrently, large files are split into chunks hashed
+ * concurrently and combined into a Merkle tree, so a partially changed or resumed file only needs
+ * its dirty chunks re-hashed.
+ */
+public class FileHasher {
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    //Merkle树叶子和内部节点的前缀
+    private static final byte MERKLE_LEAF = 0x00;
+    private static final byte MERKLE_NODE = 0x01;
+
+    private final String algorithm;
+    private final int chunkSize;
+    //hashAll同时打开的文件数上限
+    private final int maxOpenFiles;
+    private final ExecutorService executor;
+
+    /**
+     * 构造方法：MD5，默认块大小，线程数为CPU核数
+     * MD5, default chunk size, one thread per CPU core.
+     */
+    public FileHasher() {
+        this(LibConst.DIGEST_MD5, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构造方法
+     * @param algorithm     摘要算法
+     *                      digest algorithm, such as {@link LibConst#DIGEST_MD5}
+     * @param chunkSize     块大小
+     *                      chunk size in bytes
+     * @param threadCount   线程数
+     *                      number of worker threads
+     */
+    public FileHasher(String algorithm, int chunkSize, int threadCount) {
+        if(chunkSize <= 0)
+            throw new IllegalArgumentException("FileHasher -- chunkSize must be positive: " + chunkSize);
+        this.algorithm = algorithm;
+        this.chunkSize = chunkSize;
+        this.maxOpenFiles = Math.max(2, threadCount * 2);
+        //ForkJoinPool要求API 21，这里使用固定大小的线程池
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new HasherThreadFactory());
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 计算单个文件的摘要，各块并行计算
+     * Hash a file, its chunks in parallel.
+     */
+    public FileDigest hash(File file) throws IOException {
+        return hash(file, null, null);
+    }
+
+    /**
+     * 并行计算多个文件的摘要，返回结果与输入顺序一致。同时打开的文件不超过线程数的两倍，
+     * 达到上限时先等待最早提交的文件完成并关闭，再打开下一个文件。
+     * Hash several files in parallel. Results are in input order. At most twice the thread count of
+     * files are open at once: when the limit is reached, the oldest file is awaited and closed before
+     * the next one is opened.
+     */
+    public List<FileDigest> hashAll(List<File> files) throws IOException {
+        List<FileDigest> results = new ArrayList<FileDigest>(files.size());
+        ArrayDeque<PendingFile> window = new ArrayDeque<PendingFile>(maxOpenFiles);
+        try {
+            for(File file : files) {
+                if(window.size() >= maxOpenFiles)
+                    results.add(finish(window.poll()));
+                window.add(submit(file, null, null));
+            }
+            while(!window.isEmpty()) {
+                results.add(finish(window.poll()));
+            }
+            return results;
+        } finally {
+            for(PendingFile pending : window) {
+                pending.close();
+            }
+        }
+    }
+
+    /**
+     * 校验文件，返回摘要与期望值不同的块序号
+     * Verify a file against an expected digest and return the indexes of mismatched chunks.
+     * A length change marks the chunks from the first affected one onwards as mismatched.
+     */
+    public int[] verify(File file, FileDigest expected) throws IOException {
+        FileDigest actual = hash(file, null, null);
+        return diff(actual, expected);
+    }
+
+    /**
+     * 只重新计算指定的块，其余块沿用之前的摘要，用于部分修改或断点续传的文件
+     * Re-hash only the given dirty chunks and reuse the previous digests of the others,
+     * for partially changed or resumed files.
+     *
+     * @param file          File to hash
+     * @param previous      Previous digest of the file
+     * @param dirtyChunks   Indexes of the chunks to re-hash. Chunks beyond the previous digest
+     *                      (the file grew) are always hashed.
+     */
+    public FileDigest rehash(File file, FileDigest previous, int[] dirtyChunks) throws IOException {
+        if(previous == null || previous.getChunkSize() != chunkSize || !previous.getAlgorithm().equals(algorithm))
+            return hash(file);
+        boolean[] dirty = new boolean[previous.getChunkCount()];
+        for(int index : dirtyChunks) {
+            if(index >= 0 && index < dirty.length)
+                dirty[index] = true;
+        }
+        return hash(file, previous, dirty);
+    }
+
+    /**
+     * 比较两个摘要，返回不同的块序号
+     * Compare two digests and return the indexes of the chunks which differ.
+     */
+    public static int[] diff(FileDigest actual, FileDigest expected) {
+        //文件变短时，期望摘要中多出的块也算作不同
+        int count = Math.max(actual.getChunkCount(), expected != null ? expected.getChunkCount() : 0);
+        IntArrayList mismatched = new IntArrayList();
+        for(int i = 0; i < count; i++) {
+            if(i >= actual.getChunkCount() || !actual.isChunkEqual(expected, i))
+                mismatched.add(i);
+        }
+        return mismatched.toArray();
+    }
+
+    /**
+     * 关闭线程池
+     * Shut down the worker pool. The hasher can not be used afterwards.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private FileDigest hash(File file, FileDigest previous, boolean[] dirty) throws IOException {
+        return finish(submit(file, previous, dirty));
+    }
+
+    /**
+     * 等待文件计算完成并关闭文件
+     */
+    private static FileDigest finish(PendingFile pending) throws IOException {
+        try {
+            return pending.await();
+        } finally {
+            pending.close();
+        }
+    }
+
+    /**
+     * 打开文件并提交各块的计算任务
+     */
+    private PendingFile submit(File file, FileDigest previous, boolean[] dirty) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        PendingFile pending = null;
+        try {
+            FileChannel channel = in.getChannel();
+            long length = channel.size();
+            int chunkCount = (int) Math.max(1, (length + chunkSize - 1) / chunkSize);
+            pending = new PendingFile(file, in, length, chunkCount);
+            for(int i = 0; i < chunkCount; i++) {
+                long position = (long) i * chunkSize;
+                long chunkLength = Math.min(chunkSize, length - position);
+                boolean reusable = previous != null && i < dirty.length && !dirty[i]
+                        && chunkLength == Math.min(chunkSize, previous.getLength() - position);
+                if(reusable) {
+                    pending.chunkDigests[i] = previous.getChunkDigest(i);
+                } else {
+                    pending.futures[i] = executor.submit(new ChunkTask(channel, position, chunkLength));
+                }
+            }
+            return pending;
+        } catch(IOException e) {
+            abort(pending, in);
+            throw e;
+        } catch(RuntimeException e) {
+            //例如shutdown之后提交任务抛出的RejectedExecutionException
+            abort(pending, in);
+            throw e;
+        }
+    }
+
+    private static void abort(PendingFile pending, FileInputStream in) {
+        if(pending != null)
+            pending.close();
+        else
+            IOUtils.closeQuietly(in);
+    }
+
+    /**
+     * 计算Merkle树根：叶子为0x00与块摘要拼接后的摘要，内部节点为0x01与相邻两个节点拼接后的摘要，
+     * 前缀不同保证叶子和内部节点不会相互冒充；落单的节点直接进入上一层
+     * Merkle root: a leaf is the digest of 0x00 and the chunk digest, an inner node the digest of 0x01
+     * and its two children, so leaves and inner nodes can not collide. An odd last node is promoted.
+     */
+    private byte[] merkleRoot(byte[][] chunkDigests) {
+        byte[][] level = new byte[chunkDigests.length][];
+        for(int i = 0; i < level.length; i++) {
+            MessageDigest digest = EncodeUtils.getThreadDigest(algorithm);
+            digest.update(MERKLE_LEAF);
+            digest.update(chunkDigests[i]);
+            level[i] = digest.digest();
+        }
+        while(level.length > 1) {
+            byte[][] parent = new byte[(level.length + 1) / 2][];
+            for(int i = 0; i < parent.length; i++) {
+                int left = i * 2;
+                if(left + 1 < level.length) {
+                    MessageDigest digest = EncodeUtils.getThreadDigest(algorithm);
+                    digest.update(MERKLE_NODE);
+                    digest.update(level[left]);
+                    digest.update(level[left + 1]);
+                    parent[i] = digest.digest();
+                } else {
+                    parent[i] = level[left];
+                }
+            }
+            level = parent;
+        }
+        return level[0];
+    }
+
+    /**
+     * 计算中的文件
+     */
+    private class PendingFile {
+        final File file;
+        final FileInputStream in;
+        final long length;
+        final byte[][] chunkDigests;
+        final Future<?>[] futures;
+
+        PendingFile(File file, FileInputStream in, long length, int chunkCount) {
+            this.file = file;
+            this.in = in;
+            this.length = length;
+            this.chunkDigests = new byte[chunkCount][];
+            this.futures = new Future<?>[chunkCount];
+        }
+
+        FileDigest await() throws IOException {
+            for(int i = 0; i < futures.length; i++) {
+                if(futures[i] == null)
+                    continue;
+                try {
+                    chunkDigests[i] = (byte[]) futures[i].get();
+                } catch(InterruptedException e) {
+                    cancel();
+                    Thread.currentThread().interrupt();
+                    throw new IOException("FileHasher -- interrupted: " + file);
+                } catch(ExecutionException e) {
+                    cancel();
+                    Throwable cause = e.getCause();
+                    if(cause instanceof IOException)
+                        throw (IOException) cause;
+                    throw new IOException("FileHasher -- failed: " + file + ", " + cause);
+                }
+            }
+            return new FileDigest(file, algorithm, length, chunkSize, chunkDigests, merkleRoot(chunkDigests));
+        }
+
+        void cancel() {
+            for(Future<?> future : futures) {
+                if(future != null)
+                    future.cancel(false);
+            }
+        }
+
+        void close() {
+            cancel();
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * 计算单个块摘要的任务
+     */
+    private class ChunkTask implements Callable<byte[]> {
+        private final FileChannel channel;
+        private final long position;
+        private final long length;
+
+        ChunkTask(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            return EncodeUtils.digest(channel, position, length, algorithm);
+        }
+    }
+
+    private static class HasherThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FileHasher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.anchorer.lib.utils;
+
+import com.anchorer.lib.consts.LibConst;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Utils Class about I/O streams and channels.
+ */
+public class IOUtils {
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    //每个线程复用的拷贝缓冲区
+    private static final ThreadLocal<byte[]> sCopyBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[COPY_BUFFER_SIZE];
+        }
+    };
+
+    /**
+     * 将输入流的内容拷贝到输出流，使用固定大小的缓冲区，不关闭任何流
+     * Copy an InputStream to an OutputStream through a fixed-size per-thread buffer. Neither stream is closed.
+     *
+     * @param in    Source stream
+     * @param out   Destination stream
+     * @return  Number of bytes copied
+     */
+    public static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = sCopyBuffer.get();
+        long total = 0;
+        int read;
+        while((read = in.read(buffer, 0, buffer.length)) != -1) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 关闭流，忽略异常
+     * Close a stream or channel, ignoring any IOException.
+     *
+     * @param closeable Stream or channel to close, may be null
+     */
+    public static void closeQuietly(Closeable closeable) {
+        if(closeable == null)
+            return;
+        try {
+            closeable.close();
+        } catch(IOException e) {
+            L.w(LibConst.LOG, "IOUtils -- closeQuietly: IOException", e);
+        }
+    }
+
+}
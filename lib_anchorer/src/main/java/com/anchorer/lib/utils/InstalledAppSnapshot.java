@@ -0,0 +1,445 @@
+package com.anchorer.lib.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.PackageManager.NameNotFoundException;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+
+import com.anchorer.lib.collection.BloomFilter;
+import com.anchorer.lib.consts.LibConst;
+import com.anchorer.lib.model.AppInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility: InstalledAppSnapshot
+ * 进程内共享的已安装应用快照：第一次使用时在后台线程中加载一次，之后根据应用安装、卸载、更新的广播增量更新，
+ * 不再重复调用PackageManager获取全部应用。
+ * 1. 按包名查询为常数时间，读取不加锁；
+ * 2. 每次变化后版本号递增，使用方可以据此跳过未变化的数据；
+ * 3. 应用名称和图标延迟加载，见{@link AppInfo#fromPackageInfo(PackageManager, PackageInfo)}；
+ * 4. 应用清单保存在{@link AppInventoryIndex}中，冷启动时工作线程先发布上次保存的清单，再与PackageManager核对后更新；
+ * 5. {@link #isInstalled}和{@link #installedSubset}判断应用是否安装，不需要获取全部应用列表。
+ *
+ * Process-wide snapshot of installed applications. It is loaded once on a background thread and then
+ * updated incrementally from package broadcasts instead of querying PackageManager on every call.
+ * 1. Lookups by package name are constant time and lock-free;
+ * 2. A version counter is bumped on every change so consumers can skip unchanged data;
+ * 3. Labels and icons are loaded lazily;
+ * 4. The inventory is persisted in an {@link AppInventoryIndex}. At cold start the worker publishes
+ *    the saved inventory first, then reconciles it with PackageManager;
+ * 5. {@link #isInstalled} and {@link #installedSubset} answer membership without listing all packages.
+ */
+public class InstalledAppSnapshot {
+
+    /**
+     * 快照变化回调，在主线程中执行
+     * Snapshot change listener, called on the main thread.
+     */
+    public interface OnSnapshotChangedListener {
+        void onSnapshotChanged(InstalledAppSnapshot snapshot, long version);
+    }
+
+    private static final String INDEX_FILE_NAME = "app_inventory.idx";
+    //加载失败后的重试间隔(ms)，依次使用，用完后不再自动重试，等待下一次refresh
+    private static final long[] LOAD_RETRY_DELAYS = {2000, 10000, 60000};
+
+    private static volatile InstalledAppSnapshot sInstance;
+
+    private final PackageManager packageManager;
+    private final AppInventoryIndex index;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    //加载和增量更新都在同一个线程中按顺序执行
+    private final ExecutorService worker;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private final List<OnSnapshotChangedListener> listeners = new CopyOnWriteArrayList<OnSnapshotChangedListener>();
+
+    //包名 -> 应用信息，每次更新时整体替换，读取不加锁
+    private volatile Map<String, AppInfo> apps = Collections.emptyMap();
+    private volatile long version;
+    //连续加载失败的次数，只在工作线程中访问
+    private int loadFailures;
+
+    /**
+     * 获取快照，第一次调用时开始在后台加载
+     * Get the snapshot. The first call starts loading it in the background.
+     */
+    public static InstalledAppSnapshot getInstance(Context context) {
+        if(sInstance == null) {
+            synchronized(InstalledAppSnapshot.class) {
+                if(sInstance == null)
+                    sInstance = new InstalledAppSnapshot(context.getApplicationContext());
+            }
+        }
+        return sInstance;
+    }
+
+    private InstalledAppSnapshot(Context context) {
+        this.packageManager = context.getPackageManager();
+        this.index = new AppInventoryIndex(new File(context.getFilesDir(), INDEX_FILE_NAME));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "InstalledAppSnapshot");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.worker = executor;
+
+        //先注册广播再加载，加载期间的变化排在加载之后处理
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addDataScheme("package");
+        context.registerReceiver(new PackageReceiver(), filter);
+        //读取文件也放在工作线程中，getInstance()可以在主线程中调用
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                loadSaved();
+                loadAll();
+            }
+        });
+    }
+
+    /**
+     * 快照是否已与PackageManager核对成功。未完成或加载失败时可能是上次保存的清单，应用没有图标来源。
+     * Whether the snapshot has been successfully checked against PackageManager. Before that, or
+     * while loading keeps failing, it may hold the saved inventory, whose apps have no icon source yet.
+     */
+    public boolean isLoaded() {
+        return loaded.getCount() == 0;
+    }
+
+    /**
+     * 等待快照加载完成，不要在主线程中调用
+     * Wait until the snapshot is loaded. Do not call on the main thread.
+     *
+     * @return  是否在超时前加载成功，加载失败时一直等待到超时
+     */
+    public boolean awaitLoaded(long timeoutMillis) throws InterruptedException {
+        return loaded.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取快照版本号，快照每次变化后递增，尚未发布任何内容时为0。发布上次保存的清单也会使其递增，
+     * 因此版本号不为0时{@link #isLoaded()}仍可能为false
+     * Get the version, bumped on every change; 0 until anything is published. Publishing the saved
+     * inventory bumps it too, so a non-zero version does not imply {@link #isLoaded()}.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 按包名查询应用，未安装或快照未加载时返回null
+     * Look up an app by package name. Returns null if not installed or not loaded yet.
+     */
+    public AppInfo get(String packageName) {
+        return apps.get(packageName);
+    }
+
+    /**
+     * 判断应用是否已安装
+     * @deprecated 使用{@link #isInstalled(String)}，快照加载成功前同样会向PackageManager查询
+     *             use {@link #isInstalled(String)}, which has the same answer before the snapshot is loaded
+     */
+    @Deprecated
+    public boolean contains(String packageName) {
+        return isInstalled(packageName);
+    }
+
+    /**
+     * 判断应用是否已安装：快照加载成功后只查询哈希表，为常数时间；快照未加载或加载失败时向PackageManager查询该应用，
+     * 不使用可能过期的已保存清单
+     * Check whether a package is installed. Once the snapshot has loaded successfully this is a
+     * constant-time hash lookup; before that, or while loading fails, it asks PackageManager for this
+     * one package instead of trusting the possibly stale saved inventory.
+     */
+    public boolean isInstalled(String packageName) {
+        if(TextUtils.isEmpty(packageName))
+            return false;
+        //isLoaded()只在核对成功并发布新快照后为true
+        if(isLoaded())
+            return apps.containsKey(packageName);
+        try {
+            packageManager.getPackageInfo(packageName, 0);
+            return true;
+        } catch(NameNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 获取给定包名中已安装的部分，按给定的顺序排列；快照加载成功后每个包名的查询为常数时间，不获取全部应用列表，
+     * 加载成功前逐个向PackageManager查询
+     * Get the installed subset of the given packages, in the given order. Once the snapshot has
+     * loaded successfully each package is a constant-time lookup; before that each one is asked of
+     * PackageManager. The full package list is never fetched.
+     */
+    public Set<String> installedSubset(Collection<String> packageNames) {
+        Set<String> installed = new LinkedHashSet<String>();
+        if(isLoaded()) {
+            Map<String, AppInfo> current = apps;
+            for(String packageName : packageNames) {
+                if(packageName != null && current.containsKey(packageName))
+                    installed.add(packageName);
+            }
+        } else {
+            for(String packageName : packageNames) {
+                if(isInstalled(packageName))
+                    installed.add(packageName);
+            }
+        }
+        return installed;
+    }
+
+    /**
+     * 将已安装应用的包名导出为布隆过滤器，可以序列化后上传；快照加载成功前导出的是上次保存的清单，需要时先检查{@link #isLoaded()}
+     * Export the installed package names as a Bloom filter, e.g. to upload a compact fingerprint.
+     * Before the snapshot has loaded this is the saved inventory; check {@link #isLoaded()} if that matters.
+     *
+     * @param includeSystemApps 是否包含系统应用
+     * @param fpp               误判率
+     *                          false positive probability
+     */
+    public BloomFilter toBloomFilter(boolean includeSystemApps, double fpp) {
+        Map<String, AppInfo> current = apps;
+        BloomFilter filter = BloomFilter.create(current.size(), fpp);
+        for(AppInfo appInfo : current.values()) {
+            if(includeSystemApps || !appInfo.isSystemApp())
+                filter.put(appInfo.getPackageName());
+        }
+        return filter;
+    }
+
+    public int size() {
+        return apps.size();
+    }
+
+    /**
+     * 获取已安装应用的列表
+     * @param includeSystemApps 是否包含系统应用
+     */
+    public List<AppInfo> getAppInfoList(boolean includeSystemApps) {
+        Map<String, AppInfo> current = apps;
+        List<AppInfo> list = new ArrayList<AppInfo>(current.size());
+        for(AppInfo appInfo : current.values()) {
+            if(includeSystemApps || !appInfo.isSystemApp())
+                list.add(appInfo);
+        }
+        return list;
+    }
+
+    /**
+     * 获取已安装应用的包名列表
+     * @param includeSystemApps 是否包含系统应用
+     */
+    public List<String> getPackageList(boolean includeSystemApps) {
+        Map<String, AppInfo> current = apps;
+        List<String> list = new ArrayList<String>(current.size());
+        for(AppInfo appInfo : current.values()) {
+            if(includeSystemApps || !appInfo.isSystemApp())
+                list.add(appInfo.getPackageName());
+        }
+        return list;
+    }
+
+    /**
+     * 获取当前快照的只读视图，视图内容不随之后的变化而改变
+     * Get a read-only view of the current snapshot. It does not change with later updates.
+     */
+    public Map<String, AppInfo> getApps() {
+        return apps;
+    }
+
+    public void addOnSnapshotChangedListener(OnSnapshotChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeOnSnapshotChangedListener(OnSnapshotChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 重新加载全部应用，用于广播可能丢失的场景，例如进程从后台恢复
+     * Reload everything, for when broadcasts may have been missed.
+     */
+    public void refresh() {
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                loadAll();
+            }
+        });
+    }
+
+    /**
+     * 发布上次保存的清单，在核对完成前先提供数据
+     */
+    private void loadSaved() {
+        List<AppInfo> saved = index.load();
+        if(!saved.isEmpty()) {
+            Map<String, AppInfo> map = new HashMap<String, AppInfo>(saved.size() * 4 / 3 + 1);
+            for(AppInfo appInfo : saved) {
+                map.put(appInfo.getPackageName(), appInfo);
+            }
+            publish(Collections.unmodifiableMap(map));
+        }
+    }
+
+    /**
+     * 与PackageManager核对全部应用：版本未变化的应用沿用已有的名称，只补充延迟加载的来源；有变化时发布新快照并保存清单
+     */
+    private void loadAll() {
+        try {
+            List<PackageInfo> packages = packageManager.getInstalledPackages(0);
+            Map<String, AppInfo> current = apps;
+            Map<String, AppInfo> map = new HashMap<String, AppInfo>(packages.size() * 4 / 3 + 1);
+            boolean changed = packages.size() != current.size();
+            //语言变化后保存的清单不含应用名称，需要重新保存
+            boolean labelsMissing = false;
+            for(PackageInfo packageInfo : packages) {
+                AppInfo appInfo = current.get(packageInfo.packageName);
+                if(appInfo != null && appInfo.getVersionCode() == packageInfo.versionCode
+                        && TextUtils.equals(appInfo.getVersionName(), packageInfo.versionName)
+                        && appInfo.getFlags() == packageInfo.applicationInfo.flags) {
+                    appInfo.setSource(packageManager, packageInfo.applicationInfo);
+                    labelsMissing |= !appInfo.isAppNameLoaded();
+                } else {
+                    appInfo = AppInfo.fromPackageInfo(packageManager, packageInfo);
+                    changed = true;
+                }
+                map.put(packageInfo.packageName, appInfo);
+            }
+            if(changed) {
+                publish(Collections.unmodifiableMap(map));
+            }
+            //只有核对成功才算加载完成，失败时isLoaded()保持false，查询继续回退到PackageManager
+            loadFailures = 0;
+            loaded.countDown();
+            if(changed || labelsMissing) {
+                save(map);
+            }
+        } catch(RuntimeException e) {
+            //PackageManager在应用过多时可能抛出异常（事务数据过大）
+            L.w(LibConst.LOG, "InstalledAppSnapshot -- loadAll: " + e);
+            scheduleRetry();
+        }
+    }
+
+    /**
+     * 加载失败后延迟重试，重试次数用完后等待下一次refresh
+     */
+    private void scheduleRetry() {
+        if(loadFailures >= LOAD_RETRY_DELAYS.length)
+            return;
+        long delay = LOAD_RETRY_DELAYS[loadFailures++];
+        handler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, delay);
+    }
+
+    /**
+     * 保存应用清单，在工作线程中执行
+     */
+    private void save(Map<String, AppInfo> map) {
+        try {
+            index.save(map.values());
+        } catch(IOException e) {
+            L.w(LibConst.LOG, "InstalledAppSnapshot -- save: IOException", e);
+        }
+    }
+
+    /**
+     * 更新单个应用，在工作线程中执行
+     */
+    private void update(String packageName, boolean removed) {
+        Map<String, AppInfo> map = new HashMap<String, AppInfo>(apps);
+        if(removed) {
+            if(map.remove(packageName) == null)
+                return;
+        } else {
+            try {
+                PackageInfo packageInfo = packageManager.getPackageInfo(packageName, 0);
+                map.put(packageName, AppInfo.fromPackageInfo(packageManager, packageInfo));
+            } catch(NameNotFoundException e) {
+                if(map.remove(packageName) == null)
+                    return;
+            }
+        }
+        publish(Collections.unmodifiableMap(map));
+        save(map);
+    }
+
+    private void publish(Map<String, AppInfo> map) {
+        apps = map;
+        final long current = ++version;
+        if(listeners.isEmpty())
+            return;
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                for(OnSnapshotChangedListener listener : listeners) {
+                    listener.onSnapshotChanged(InstalledAppSnapshot.this, current);
+                }
+            }
+        });
+    }
+
+    /**
+     * 广播接收器：应用安装、卸载、更新
+     */
+    private class PackageReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            if(data == null)
+                return;
+            final String packageName = data.getSchemeSpecificPart();
+            if(packageName == null)
+                return;
+            final boolean removed = Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction());
+            //覆盖安装时先收到REMOVED再收到REPLACED，只处理REPLACED
+            if(removed && intent.getBooleanExtra(Intent.EXTRA_REPLACING, false))
+                return;
+            worker.execute(new Runnable() {
+                @Override
+                public void run() {
+                    update(packageName, removed);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.anchorer.lib.utils;
+
+/**
+ * Utility: MimeTypeUtils
+ * 根据文件扩展名获取MIME类型，扩展名不区分大小写，查询不创建对象。
+ * Resolve MIME types from file extensions, ignoring case, without creating objects.
+ */
+public class MimeTypeUtils {
+    private static final ExtensionTrie<String> sMimeTypes = new ExtensionTrie<String>();
+
+    static {
+        String[] table = {
+                "mp4", "video/mp4", "3gp", "video/3gpp", "flv", "video/x-flv", "webm", "video/webm",
+                "mkv", "video/x-matroska", "avi", "video/x-msvideo", "mov", "video/quicktime",
+                "m3u8", "application/vnd.apple.mpegurl", "ts", "video/mp2t",
+                "mp3", "audio/mpeg", "aac", "audio/aac", "m4a", "audio/mp4", "wav", "audio/x-wav",
+                "ogg", "audio/ogg", "flac", "audio/flac", "amr", "audio/amr",
+                "jpg", "image/jpeg", "jpeg", "image/jpeg", "png", "image/png", "gif", "image/gif",
+                "webp", "image/webp", "bmp", "image/bmp", "svg", "image/svg+xml", "ico", "image/x-icon",
+                "html", "text/html", "htm", "text/html", "css", "text/css", "js", "application/javascript",
+                "json", "application/json", "xml", "text/xml", "txt", "text/plain",
+                "pdf", "application/pdf", "zip", "application/zip", "rar", "application/x-rar-compressed",
+                "7z", "application/x-7z-compressed", "gz", "application/gzip", "tar", "application/x-tar",
+                "apk", "application/vnd.android.package-archive",
+                "doc", "application/msword", "xls", "application/vnd.ms-excel", "ppt", "application/vnd.ms-powerpoint",
+                "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                "pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+        };
+        for(int i = 0; i < table.length; i += 2) {
+            sMimeTypes.put(table[i], table[i + 1]);
+        }
+    }
+
+    /**
+     * 根据扩展名获取MIME类型
+     * Get the MIME type of an extension, without the dot.
+     *
+     * @return  MIME type, or null if unknown
+     */
+    public static String getMimeType(CharSequence extension) {
+        return extension == null ? null : sMimeTypes.get(extension);
+    }
+
+    /**
+     * 根据URL的扩展名获取MIME类型，忽略query和fragment
+     * Get the MIME type of an URL by the extension of its path. Query and fragment are ignored.
+     *
+     * @return  MIME type, or null if unknown
+     */
+    public static String getMimeTypeFromUrl(UrlView url) {
+        return url.lookupExtension(sMimeTypes);
+    }
+
+    /**
+     * 注册或覆盖扩展名对应的MIME类型
+     * Register or override the MIME type of an extension.
+     */
+    public static void registerMimeType(String extension, String mimeType) {
+        sMimeTypes.put(extension, mimeType);
+    }
+}
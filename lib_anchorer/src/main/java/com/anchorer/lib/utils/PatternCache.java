@@ -0,0 +1,70 @@
+package com.anchorer.lib.utils;
+
+import android.support.v4.util.LruCache;
+
+import java.util.regex.Pattern;
+
+/**
+ * Utility: PatternCache
+ * 已编译正则表达式的LRU缓存，线程安全，以正则字符串为键，并统计命中/未命中次数。
+ * Thread-safe LRU cache of compiled regular expressions keyed by regex, with hit/miss counters.
+ */
+public class PatternCache {
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    private static final PatternCache sDefault = new PatternCache(DEFAULT_MAX_SIZE);
+
+    private final LruCache<String, Pattern> cache;
+
+    /**
+     * 构造方法
+     * @param maxSize   最多缓存的正则表达式个数
+     *                  max number of compiled patterns kept
+     */
+    public PatternCache(int maxSize) {
+        cache = new LruCache<String, Pattern>(maxSize) {
+            @Override
+            protected Pattern create(String regex) {
+                return Pattern.compile(regex);
+            }
+        };
+    }
+
+    /**
+     * 获取全局共享的缓存
+     * Get the process-wide shared cache.
+     */
+    public static PatternCache getDefault() {
+        return sDefault;
+    }
+
+    /**
+     * 获取编译后的正则表达式，未缓存时编译并加入缓存
+     * Get the compiled pattern of a regex, compiling and caching it on a miss.
+     *
+     * @throws java.util.regex.PatternSyntaxException if the regex is invalid
+     */
+    public Pattern get(String regex) {
+        return cache.get(regex);
+    }
+
+    public int hitCount() {
+        return cache.hitCount();
+    }
+
+    public int missCount() {
+        return cache.missCount();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 清空缓存
+     * Remove all cached patterns.
+     */
+    public void clear() {
+        cache.evictAll();
+    }
+}
@@ -0,0 +1,124 @@
+package com.anchorer.lib.utils;
+
+import java.nio.charset.Charset;
+
+/**
+ * Utility: PinyinUtils
+ * 汉字拼音工具：
+ * 1. 拼音首字母根据GB2312一级汉字按拼音排序的编码区间计算，不需要字典；二级汉字按部首排序，无法计算，返回0；
+ * 2. 完整拼音需要字典，通过{@link PinyinConverter}接入外部实现（例如pinyin4j）。
+ *
+ * Pinyin helpers:
+ * 1. Initials come from the GB2312 code ranges of level-1 hanzi, which are ordered by pinyin, so no
+ *    dictionary is needed. Level-2 hanzi are ordered by radical and yield 0;
+ * 2. Full pinyin needs a dictionary and is plugged in through a {@link PinyinConverter}.
+ */
+public class PinyinUtils {
+
+    /**
+     * 完整拼音转换器
+     * Full pinyin converter.
+     */
+    public interface PinyinConverter {
+        /**
+         * @return  小写、不带声调的拼音，无法转换时返回null
+         *          lower-case pinyin without tones, or null if unknown
+         */
+        String toPinyin(char c);
+    }
+
+    //GB2312一级汉字中各拼音首字母的起始编码，最后一项为一级汉字的结束编码
+    private static final int[] GB2312_BOUNDARIES = {
+            0xB0A1, 0xB0C5, 0xB2C1, 0xB4EE, 0xB6EA, 0xB7A2, 0xB8C1, 0xB9FE, 0xBBF7,
+            0xBFA6, 0xC0AC, 0xC2E8, 0xC4C3, 0xC5B6, 0xC5BE, 0xC6DA, 0xC8BB, 0xC8F6,
+            0xCBFA, 0xCDDA, 0xCEF4, 0xD1B9, 0xD4D1, 0xD7FA
+    };
+    private static final char[] GB2312_INITIALS = {
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's',
+            't', 'w', 'x', 'y', 'z'
+    };
+    private static final Charset GB2312 = Charset.forName("GB2312");
+
+    /**
+     * 判断字符是否为CJK统一汉字
+     */
+    public static boolean isHanzi(char c) {
+        return c >= '\u4E00' && c <= '\u9FA5';
+    }
+
+    /**
+     * 获取字符的拼音首字母：汉字返回小写首字母，字母和数字返回其小写形式，其他字符或无法识别的汉字返回0
+     * Get the pinyin initial of a char: a lower-case letter for hanzi, the lower-case char itself for
+     * letters and digits, and 0 for anything else or unknown hanzi.
+     */
+    public static char getInitial(char c) {
+        if(c < 0x80) {
+            if(c >= 'A' && c <= 'Z')
+                return (char) (c + ('a' - 'A'));
+            if((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))
+                return c;
+            return 0;
+        }
+        if(!isHanzi(c))
+            return 0;
+        byte[] bytes = String.valueOf(c).getBytes(GB2312);
+        if(bytes.length != 2)
+            return 0;
+        int code = (bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF);
+        if(code < GB2312_BOUNDARIES[0] || code >= GB2312_BOUNDARIES[GB2312_BOUNDARIES.length - 1])
+            return 0;
+        int i = GB2312_INITIALS.length - 1;
+        while(code < GB2312_BOUNDARIES[i])
+            i--;
+        return GB2312_INITIALS[i];
+    }
+
+    /**
+     * 获取字符串的拼音首字母串，跳过无法识别的字符
+     * @param converter 完整拼音转换器，可以为null；不为null时优先使用其结果计算汉字的首字母
+     *                  optional converter, preferred for the initials of hanzi
+     */
+    public static String getInitials(CharSequence text, PinyinConverter converter) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char initial = 0;
+            if(converter != null && isHanzi(c)) {
+                String pinyin = converter.toPinyin(c);
+                if(pinyin != null && pinyin.length() > 0)
+                    initial = pinyin.charAt(0);
+            }
+            if(initial == 0)
+                initial = getInitial(c);
+            if(initial != 0)
+                builder.append(initial);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 获取字符串的完整拼音，各字的拼音直接相连；字母和数字保留为小写，其他字符和无法转换的汉字被跳过
+     * Get the full pinyin of a string, syllables concatenated. Letters and digits are kept in lower
+     * case; other chars and unknown hanzi are skipped.
+     *
+     * @param converter 完整拼音转换器，为null时返回null
+     */
+    public static String getPinyin(CharSequence text, PinyinConverter converter) {
+        if(converter == null)
+            return null;
+        StringBuilder builder = new StringBuilder(text.length() * 3);
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if(isHanzi(c)) {
+                String pinyin = converter.toPinyin(c);
+                if(pinyin != null)
+                    builder.append(pinyin);
+            } else if(c < 0x80) {
+                char lower = getInitial(c);
+                if(lower != 0)
+                    builder.append(lower);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package com.anchorer.lib.utils;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Utility: RateMeter
+ * 无锁的吞吐量计量器，适用于多个下载线程同时记录字节数、UI线程定时读取速度的场景。
+ * 1. record()只做原子加法，不加锁，下载线程之间互不阻塞；
+ * 2. 提供滑动窗口速度、指数加权平均（EWMA）速度以及剩余时间估算；
+ * 3. 速度可直接格式化到复用的StringBuilder中，不产生临时字符串。
+ * Lock-free throughput meter: many download threads record bytes, the UI thread polls rates.
+ * 1. record() is a plain atomic add, so I/O threads never block each other or the UI;
+ * 2. sliding-window rate, EWMA rate and ETA estimates;
+ * 3. rates format into a reusable StringBuilder without temporary strings.
+ */
+public class RateMeter {
+    public static final int DEFAULT_BUCKET_MILLIS = 250;
+    public static final int DEFAULT_BUCKET_COUNT = 20;
+    public static final long DEFAULT_EWMA_HALF_LIFE_MILLIS = 3000;
+
+    private final int bucketMillis;
+    private final int bucketCount;
+    private final long halfLifeMillis;
+    private final long startTime;
+
+    private final AtomicLong total = new AtomicLong();
+    //滑动窗口：每个桶记录所属的时间片及该时间片内的字节数
+    private final AtomicLongArray bucketSlots;
+    private final AtomicLongArray bucketBytes;
+
+    //EWMA状态只由读取速度的线程更新，不与record()竞争
+    private double ewmaRate;
+    private long ewmaTotal;
+    private long ewmaTime;
+
+    /**
+     * 构造方法：5秒滑动窗口（20个250ms的桶），EWMA半衰期3秒
+     * 5s sliding window of 20 buckets of 250ms, EWMA half-life 3s.
+     */
+    public RateMeter() {
+        this(DEFAULT_BUCKET_MILLIS, DEFAULT_BUCKET_COUNT, DEFAULT_EWMA_HALF_LIFE_MILLIS);
+    }
+
+    /**
+     * 构造方法
+     * @param bucketMillis      每个桶的时长(ms)
+     *                          duration of one window bucket in ms
+     * @param bucketCount       桶的个数，窗口时长为bucketMillis * bucketCount
+     *                          number of buckets, the window is bucketMillis * bucketCount
+     * @param halfLifeMillis    EWMA半衰期(ms)
+     *                          half-life of the EWMA in ms
+     * @throws IllegalArgumentException 任一参数不为正数
+     *                                  if any argument is not positive
+     */
+    public RateMeter(int bucketMillis, int bucketCount, long halfLifeMillis) {
+        if(bucketMillis <= 0)
+            throw new IllegalArgumentException("RateMeter -- bucketMillis must be positive: " + bucketMillis);
+        if(bucketCount <= 0)
+            throw new IllegalArgumentException("RateMeter -- bucketCount must be positive: " + bucketCount);
+        if(halfLifeMillis <= 0)
+            throw new IllegalArgumentException("RateMeter -- halfLifeMillis must be positive: " + halfLifeMillis);
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+        this.halfLifeMillis = halfLifeMillis;
+        this.bucketSlots = new AtomicLongArray(bucketCount);
+        this.bucketBytes = new AtomicLongArray(bucketCount);
+        this.startTime = now();
+        this.ewmaTime = startTime;
+        for(int i = 0; i < bucketCount; i++) {
+            bucketSlots.set(i, -1);
+        }
+    }
+
+    /**
+     * 记录传输的字节数，可在任意线程中并发调用，不加锁
+     * Record transferred bytes. Lock-free, callable from any thread.
+     */
+    public void record(long bytes) {
+        total.addAndGet(bytes);
+        long slot = (now() - startTime) / bucketMillis;
+        int index = (int) (slot % bucketCount);
+        long current = bucketSlots.get(index);
+        //桶只向更新的时间片推进，避免取时间较早、执行较晚的线程把桶退回旧时间片并清零新数据
+        while(current < slot) {
+            if(bucketSlots.compareAndSet(index, current, slot)) {
+                //抢到新时间片的线程负责清零，期间并发写入的少量字节可能丢失，只影响窗口速度的精度
+                bucketBytes.set(index, 0);
+                current = slot;
+                break;
+            }
+            current = bucketSlots.get(index);
+        }
+        //桶已属于更新的时间片，旧样本只计入总量
+        if(current != slot)
+            return;
+        bucketBytes.addAndGet(index, bytes);
+    }
+
+    /**
+     * 获取累计传输的字节数
+     * Get total recorded bytes.
+     */
+    public long getTotalBytes() {
+        return total.get();
+    }
+
+    /**
+     * 获取滑动窗口内的平均速度
+     * Get the average rate over the sliding window.
+     *
+     * @return  bytes per second
+     */
+    public double getWindowRate() {
+        long elapsed = now() - startTime;
+        long slot = elapsed / bucketMillis;
+        long bytes = 0;
+        for(int i = 0; i < bucketCount; i++) {
+            long bucketSlot = bucketSlots.get(i);
+            if(bucketSlot >= 0 && bucketSlot > slot - bucketCount && bucketSlot <= slot)
+                bytes += bucketBytes.get(i);
+        }
+        //当前桶只经过了部分时长
+        long windowMillis = Math.min(elapsed, (long) (bucketCount - 1) * bucketMillis + elapsed % bucketMillis);
+        return windowMillis <= 0 ? 0 : bytes * 1000.0 / windowMillis;
+    }
+
+    /**
+     * 获取指数加权平均速度，每次调用时以上次调用以来的平均速度更新
+     * Get the exponentially weighted moving average rate, updated with the average rate since
+     * the previous call. Only the polling threads synchronize here, never the recording ones.
+     *
+     * @return  bytes per second
+     */
+    public synchronized double getEwmaRate() {
+        long time = now();
+        long interval = time - ewmaTime;
+        if(interval <= 0)
+            return ewmaRate;
+        long bytes = total.get();
+        double instantRate = (bytes - ewmaTotal) * 1000.0 / interval;
+        if(ewmaTotal == 0 && ewmaRate == 0) {
+            ewmaRate = instantRate;
+        } else {
+            double alpha = 1 - Math.pow(0.5, (double) interval / halfLifeMillis);
+            ewmaRate += alpha * (instantRate - ewmaRate);
+        }
+        ewmaTotal = bytes;
+        ewmaTime = time;
+        return ewmaRate;
+    }
+
+    /**
+     * 估算剩余时间，以滑动窗口速度计算
+     * Estimate the remaining time by the sliding-window rate.
+     *
+     * @param totalBytes    total size of the transfer
+     * @return  remaining ms, or -1 if the rate is 0
+     */
+    public long getEtaMillis(long totalBytes) {
+        double rate = getWindowRate();
+        if(rate <= 0)
+            return -1;
+        long remaining = Math.max(0, totalBytes - total.get());
+        return (long) (remaining * 1000 / rate);
+    }
+
+    /**
+     * 将滑动窗口速度按"KB/s"/"MB/s"格式追加到StringBuilder
+     * Append the sliding-window rate as "KB/s"/"MB/s" to a StringBuilder.
+     */
+    public StringBuilder appendWindowRate(StringBuilder out) {
+        return StringUtils.appendDownloadVelocity((long) (getWindowRate() / 1024), out);
+    }
+
+    /**
+     * 将EWMA速度按"KB/s"/"MB/s"格式追加到StringBuilder
+     * Append the EWMA rate as "KB/s"/"MB/s" to a StringBuilder.
+     */
+    public StringBuilder appendEwmaRate(StringBuilder out) {
+        return StringUtils.appendDownloadVelocity((long) (getEwmaRate() / 1024), out);
+    }
+
+    private static long now() {
+        return SystemClock.elapsedRealtime();
+    }
+}
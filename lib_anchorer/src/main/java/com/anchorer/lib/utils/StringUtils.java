@@ -2,6 +2,10 @@ package com.anchorer.lib.utils;
 
 import android.text.TextUtils;
 
+import com.anchorer.lib.collection.IntArrayList;
+
+import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -14,6 +18,11 @@ import java.util.regex.Pattern;
  * @author Anchorer
  */
 public class StringUtils {
+    //缓存字符串的小整数范围
+    private static final int SMALL_INT_MIN = -128;
+    private static final int SMALL_INT_MAX = 1023;
+    private static final String[] sSmallIntStrings = new String[SMALL_INT_MAX - SMALL_INT_MIN + 1];
+
 	/**
 	 * 得到字符串的子字符串
      * Get sub string of original string. Don't consider ArrayIndexOutOfBoundException.
@@ -40,10 +49,36 @@ public class StringUtils {
      *                          regular expression
 	 */
 	public static boolean validateStringPattern(String source, String regularPattern) {
-		Pattern pattern = Pattern.compile(regularPattern);
+		Pattern pattern = PatternCache.getDefault().get(regularPattern);
 		Matcher matcher = pattern.matcher(source);
 		return matcher.matches();
 	}
+
+    /**
+     * 使用同一个正则表达式批量检查字符串格式，复用同一个Matcher
+     * Match a batch of strings by one regular expression, reusing one Matcher.
+     *
+     * @param sources   strings to match
+     * @param regularPattern    regular expression
+     * @return  Result of each string, in input order. Null strings do not match.
+     */
+    public static boolean[] validateStringPattern(List<String> sources, String regularPattern) {
+        boolean[] results = new boolean[sources.size()];
+        Matcher matcher = PatternCache.getDefault().get(regularPattern).matcher("");
+        for(int i = 0; i < results.length; i++) {
+            String source = sources.get(i);
+            results[i] = source != null && matcher.reset(source).matches();
+        }
+        return results;
+    }
+
+    /**
+     * 使用同一个正则表达式批量检查字符串格式，复用同一个Matcher
+     * Match an array of strings by one regular expression, reusing one Matcher.
+     */
+    public static boolean[] validateStringPattern(String[] sources, String regularPattern) {
+        return validateStringPattern(Arrays.asList(sources), regularPattern);
+    }
 	
 	/**
 	 * 获取到"yyyy-MM-dd"格式的日期字符串
@@ -54,19 +89,15 @@ public class StringUtils {
 	 * @param day   Day
 	 */
 	public static String getDataStr(int year, int month, int day) {
-		String date = year + "-";
-		if(month >= 1 && month < 10) {
-			date += ("0" + month);
-		} else {
-			date += month;
-		}
-		date += "-";
-		if(day >= 1 && day < 10) {
-			date += ("0" + day);
-		} else {
-			date += day;
-		}
-		return date;
+		StringBuilder date = new StringBuilder(10);
+		date.append(year).append('-');
+		if(month >= 1 && month < 10)
+			date.append('0');
+		date.append(month).append('-');
+		if(day >= 1 && day < 10)
+			date.append('0');
+		date.append(day);
+		return date.toString();
 	}
 	
 	/**
@@ -80,14 +111,27 @@ public class StringUtils {
      *          2) MB/s as default if v > 1MB/s
 	 */
 	public static String getDownloadVelocity(long kbVelocity) {
-		if(kbVelocity < 1024)
-			return kbVelocity + "KB/s";
-		double mbVelocity = (double)((kbVelocity * 10) / 1024) / 10;
-		if(mbVelocity - (int) mbVelocity == 0)
-			return (int) mbVelocity + "MB/s";
-		return mbVelocity + "MB/s";
+		return appendDownloadVelocity(kbVelocity, new StringBuilder(16)).toString();
 	}
 
+    /**
+     * 将下载速度追加到StringBuilder，格式与getDownloadVelocity相同，不产生临时对象
+     * Append download velocity to a StringBuilder, same format as getDownloadVelocity, without temporary objects.
+     *
+     * @param kbVelocity    download velocity of "KB/s"
+     * @param out   StringBuilder to append to, can be reused between calls
+     */
+    public static StringBuilder appendDownloadVelocity(long kbVelocity, StringBuilder out) {
+        if(kbVelocity < 1024)
+            return out.append(kbVelocity).append("KB/s");
+        //保留一位小数，直接截断
+        long tenths = (kbVelocity * 10) / 1024;
+        out.append(tenths / 10);
+        if(tenths % 10 != 0)
+            out.append('.').append(tenths % 10);
+        return out.append("MB/s");
+    }
+
     /**
      * 将整形数组转换成字符串数组
      *
@@ -97,19 +141,55 @@ public class StringUtils {
     public static String[] getStringArrayFromIntArray(int[] intArray) {
         String[] strArray = new String[intArray.length];
         for(int i = 0; i < intArray.length; i++) {
-            strArray[i] = String.valueOf(intArray[i]);
+            strArray[i] = valueOf(intArray[i]);
+        }
+        return strArray;
+    }
+
+    /**
+     * 将整形列表转换成字符串数组
+     *
+     * @param intList   要转化的int列表
+     * @return  转化后的字符串数组
+     */
+    public static String[] getStringArrayFromIntArray(IntArrayList intList) {
+        String[] strArray = new String[intList.size()];
+        for(int i = 0; i < strArray.length; i++) {
+            strArray[i] = valueOf(intList.get(i));
         }
         return strArray;
     }
 
     /**
-     * 获取下载文件的扩展名
+     * 将整数转换成字符串，常用的小整数（-128~1023）使用缓存的字符串实例
+     * int ==> String. Small values (-128 to 1023) come from a cache of shared instances.
+     *
+     * @param value 整数
+     */
+    public static String valueOf(int value) {
+        if(value < SMALL_INT_MIN || value > SMALL_INT_MAX)
+            return String.valueOf(value);
+        int index = value - SMALL_INT_MIN;
+        String str = sSmallIntStrings[index];
+        if(str == null) {
+            //String不可变，并发时重复创建也无副作用
+            str = String.valueOf(value);
+            sSmallIntStrings[index] = str;
+        }
+        return str;
+    }
+
+    /**
+     * 获取下载文件的扩展名，忽略URL中的query和fragment
+     * Get the file extension of a download URL. Query and fragment are ignored.
+     *
      * @param downloadUrl   文件下载地址
+     * @return  扩展名（不含'.'），没有扩展名时返回""
      */
     public static String getFileSuffix(String downloadUrl) {
         if(!TextUtils.isEmpty(downloadUrl)) {
-            int index = downloadUrl.lastIndexOf('.');
-            return downloadUrl.substring(index + 1, downloadUrl.length());
+            CharSlice extension = new UrlView(downloadUrl).getExtension();
+            return extension == null ? "" : extension.toString();
         }
         return null;
     }
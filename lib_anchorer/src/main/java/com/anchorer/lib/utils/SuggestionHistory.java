@@ -0,0 +1,532 @@
+package com.anchorer.lib.utils;
+
+import com.anchorer.lib.consts.LibConst;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility: SuggestionHistory
+ * 输入历史记录，按照衰减后的使用频率排序，用于自动补全。
+ * 历史记录保存在只追加写入的紧凑二进制文件中，启动时通过内存映射方式加载，并在内存中建立前缀索引。
+ * 每次使用对应一条追加记录，使用次数按半衰期指数衰减；记录数超过上限时淘汰得分最低的词语，日志过长时重写压缩。
+ * 记录和删除只在锁内更新内存中的索引，文件由后台写线程按顺序写入，可在主线程中调用。
+ *
+ * Input history for autocomplete, ranked by exponentially decayed use counts. Uses are appended to a
+ * compact binary log, which is loaded by memory mapping and indexed by prefix in memory. The number of
+ * entries is bounded, and the log is compacted once it grows well past the live entries.
+ * Recording only updates the in-memory index under the lock; the log is written in order by a
+ * background writer thread, so record() is safe to call on the main thread.
+ */
+public class SuggestionHistory {
+    public static final int DEFAULT_MAX_ENTRIES = 200;
+    public static final long DEFAULT_HALF_LIFE = 7L * 24 * 60 * 60 * 1000;
+
+    private static final int MAGIC = 0x53484953; // "SHIS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_INPUT_BYTES = 0xFFFF;
+    //记录数超过有效词语数的该倍数时压缩日志
+    private static final int COMPACT_FACTOR = 4;
+    //删除记录的权重
+    private static final float WEIGHT_REMOVED = -1f;
+    private static final Charset UTF_8 = Charset.forName(LibConst.ENCODING_UTF_8);
+
+    private final File file;
+    private final int maxEntries;
+    private final double halfLife;
+    //小写键 -> 词语，用于前缀查找
+    private final TreeMap<String, Entry> entries = new TreeMap<String, Entry>();
+
+    private final ThreadPoolExecutor writer;
+    //等待写入的记录及清空、关闭请求，由锁保护
+    private final List<Record> pending = new ArrayList<Record>();
+    private boolean clearRequested;
+    private boolean closeRequested;
+    private boolean writeScheduled;
+
+    //以下字段加载后只在写线程中访问
+    private RandomAccessFile log;
+    private int recordCount;
+
+    /**
+     * 构造方法，使用默认的记录上限和半衰期
+     * @param file  历史记录文件
+     */
+    public SuggestionHistory(File file) {
+        this(file, DEFAULT_MAX_ENTRIES, DEFAULT_HALF_LIFE);
+    }
+
+    /**
+     * 构造方法，文件存在时立即加载
+     * @param file          历史记录文件
+     *                      log file, loaded now if it exists
+     * @param maxEntries    最多保存的词语数量
+     *                      max number of distinct inputs kept
+     * @param halfLife      使用次数衰减一半所需的时间，单位为毫秒
+     *                      time in milliseconds for a use to lose half of its weight
+     */
+    public SuggestionHistory(File file, int maxEntries, long halfLife) {
+        if(maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries <= 0");
+        if(halfLife <= 0)
+            throw new IllegalArgumentException("halfLife <= 0");
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.halfLife = halfLife;
+        load();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "SuggestionHistory");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.writer = executor;
+    }
+
+    /**
+     * 记录一次输入，内容会去除首尾空白，空内容被忽略
+     * Record one use of an input. The input is trimmed; empty input is ignored.
+     */
+    public void record(String input) {
+        record(input, System.currentTimeMillis());
+    }
+
+    /**
+     * 记录一次在指定时间的输入
+     * @param input 输入内容
+     * @param time  使用时间，单位为毫秒
+     */
+    public void record(String input, long time) {
+        if(input == null)
+            return;
+        input = input.trim();
+        if(input.length() == 0)
+            return;
+        if(input.getBytes(UTF_8).length > MAX_INPUT_BYTES)
+            return;
+        synchronized(this) {
+            apply(input, time, 1f);
+            enqueue(new Record(input, time, 1f));
+        }
+    }
+
+    /**
+     * 删除一条历史记录
+     * Remove an input from the history.
+     */
+    public synchronized void remove(String input) {
+        if(input == null)
+            return;
+        input = input.trim();
+        if(entries.remove(key(input)) != null)
+            enqueue(new Record(input, System.currentTimeMillis(), WEIGHT_REMOVED));
+    }
+
+    /**
+     * 查询以prefix开头的历史记录（忽略大小写），按衰减后的使用频率从高到低排列
+     * Query inputs starting with the prefix, ignoring case, from the highest decayed score down.
+     *
+     * @param prefix    前缀，为空时返回全部历史记录
+     * @param limit     最多返回的数量
+     */
+    public List<String> query(CharSequence prefix, int limit) {
+        return query(prefix, limit, System.currentTimeMillis());
+    }
+
+    /**
+     * 查询在指定时间衰减后排序的历史记录
+     */
+    public synchronized List<String> query(CharSequence prefix, int limit, long now) {
+        if(limit <= 0 || entries.isEmpty())
+            return Collections.emptyList();
+        SortedMap<String, Entry> range;
+        if(prefix == null || prefix.length() == 0) {
+            range = entries;
+        } else {
+            String from = key(prefix.toString());
+            range = entries.subMap(from, from + Character.MAX_VALUE);
+        }
+        if(range.isEmpty())
+            return Collections.emptyList();
+
+        //保留得分最高的limit个词语，按得分降序插入
+        Entry[] top = new Entry[Math.min(limit, range.size())];
+        double[] scores = new double[top.length];
+        int size = 0;
+        for(Entry entry : range.values()) {
+            double score = entry.scoreAt(now, halfLife);
+            if(size == top.length && score <= scores[size - 1])
+                continue;
+            int i = size == top.length ? size - 1 : size++;
+            while(i > 0 && scores[i - 1] < score) {
+                top[i] = top[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            top[i] = entry;
+            scores[i] = score;
+        }
+
+        List<String> result = new ArrayList<String>(size);
+        for(int i = 0; i < size; i++)
+            result.add(top[i].text);
+        return result;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 清空历史记录并删除文件
+     * Clear the history and delete its file.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        pending.clear();
+        clearRequested = true;
+        scheduleWrite();
+    }
+
+    /**
+     * 写入尚未写入的记录后关闭历史记录文件，之后的记录操作会重新打开文件
+     * Close the log file once pending records are written. It is reopened by the next record.
+     */
+    public synchronized void close() {
+        closeRequested = true;
+        scheduleWrite();
+    }
+
+    /**
+     * 等待此前的记录写入文件，不要在主线程中调用
+     * Wait until earlier records are written to the log. Do not call on the main thread.
+     */
+    public void flush() {
+        try {
+            writer.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(ExecutionException e) {
+            L.w(LibConst.LOG, "SuggestionHistory -- flush: ExecutionException, " + file, e);
+        }
+    }
+
+    /**
+     * 加入等待写入的记录，调用时需持有锁
+     */
+    private void enqueue(Record record) {
+        pending.add(record);
+        scheduleWrite();
+    }
+
+    private void scheduleWrite() {
+        if(writeScheduled)
+            return;
+        writeScheduled = true;
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                writePending();
+            }
+        });
+    }
+
+    /**
+     * 在写线程中写入等待的记录。需要压缩时在取出记录的同时复制内存中的词语，保证压缩结果与已取出的记录一致。
+     */
+    private void writePending() {
+        Record[] records;
+        Record[] compacted = null;
+        boolean clear;
+        boolean close;
+        synchronized(this) {
+            records = pending.toArray(new Record[pending.size()]);
+            pending.clear();
+            clear = clearRequested;
+            close = closeRequested;
+            clearRequested = false;
+            closeRequested = false;
+            writeScheduled = false;
+            int written = clear ? 0 : recordCount;
+            if(records.length > 0 && written + records.length > Math.max(maxEntries, entries.size()) * COMPACT_FACTOR) {
+                compacted = new Record[entries.size()];
+                int i = 0;
+                for(Entry entry : entries.values())
+                    compacted[i++] = new Record(entry.text, entry.time, (float) entry.score);
+            }
+        }
+        if(clear) {
+            closeLog();
+            recordCount = 0;
+            file.delete();
+        }
+        try {
+            if(compacted != null)
+                compact(compacted);
+            else if(records.length > 0)
+                append(records);
+        } catch(IOException e) {
+            L.w(LibConst.LOG, "SuggestionHistory -- writePending: IOException, " + file, e);
+            closeLog();
+        }
+        if(close)
+            closeLog();
+    }
+
+    /**
+     * 更新内存中的词语得分
+     */
+    private void apply(String text, long time, float weight) {
+        String key = key(text);
+        if(weight < 0) {
+            entries.remove(key);
+            return;
+        }
+        Entry entry = entries.get(key);
+        if(entry == null) {
+            if(entries.size() >= maxEntries)
+                evict(time);
+            entry = new Entry(text, time);
+            entries.put(key, entry);
+        }
+        entry.add(text, time, weight, halfLife);
+    }
+
+    /**
+     * 淘汰得分最低的词语
+     */
+    private void evict(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        String lowestKey = null;
+        double lowest = Double.MAX_VALUE;
+        while(iterator.hasNext()) {
+            Entry entry = iterator.next();
+            double score = entry.scoreAt(now, halfLife);
+            if(score < lowest) {
+                lowest = score;
+                lowestKey = key(entry.text);
+            }
+        }
+        if(lowestKey != null)
+            entries.remove(lowestKey);
+    }
+
+    /**
+     * 向日志追加记录，一次写入
+     */
+    private void append(Record[] records) throws IOException {
+        if(log == null)
+            openLog();
+        byte[][] texts = new byte[records.length][];
+        int size = 0;
+        for(int i = 0; i < records.length; i++) {
+            texts[i] = records[i].text.getBytes(UTF_8);
+            size += recordSize(texts[i].length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for(int i = 0; i < records.length; i++)
+            putRecord(buffer, texts[i], records[i].time, records[i].weight);
+        buffer.flip();
+        FileChannel channel = log.getChannel();
+        long position = channel.size();
+        while(buffer.hasRemaining())
+            position += channel.write(buffer, position);
+        recordCount += records.length;
+    }
+
+    /**
+     * 以每个词语一条记录的形式重写日志，先写临时文件再重命名
+     */
+    private void compact(Record[] records) throws IOException {
+        closeLog();
+        File tempFile = new File(file.getPath() + ".tmp");
+        File parent = file.getParentFile();
+        if(parent != null && !parent.exists())
+            parent.mkdirs();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        boolean success = false;
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for(Record record : records) {
+                byte[] text = record.text.getBytes(UTF_8);
+                out.writeShort(text.length);
+                out.write(text);
+                out.writeLong(record.time);
+                out.writeFloat(record.weight);
+            }
+            out.close();
+            success = tempFile.renameTo(file);
+        } finally {
+            IOUtils.closeQuietly(out);
+            if(!success)
+                tempFile.delete();
+        }
+        if(!success)
+            throw new IOException("SuggestionHistory -- compact: failed to write " + file);
+        recordCount = records.length;
+    }
+
+    private void openLog() throws IOException {
+        File parent = file.getParentFile();
+        if(parent != null && !parent.exists())
+            parent.mkdirs();
+        log = new RandomAccessFile(file, "rw");
+        if(log.length() < HEADER_SIZE) {
+            log.setLength(0);
+            log.writeInt(MAGIC);
+            log.writeInt(VERSION);
+            recordCount = 0;
+        }
+    }
+
+    private void closeLog() {
+        IOUtils.closeQuietly(log);
+        log = null;
+    }
+
+    /**
+     * 通过内存映射方式加载并重放日志，末尾不完整的记录被截断
+     */
+    private void load() {
+        if(!file.isFile())
+            return;
+        FileInputStream in = null;
+        long validLength = 0;
+        try {
+            in = new FileInputStream(file);
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                L.w(LibConst.LOG, "SuggestionHistory -- load: unknown format, " + file);
+                file.delete();
+                return;
+            }
+            validLength = buffer.position();
+            while(buffer.hasRemaining()) {
+                byte[] text = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(text);
+                long time = buffer.getLong();
+                float weight = buffer.getFloat();
+                apply(new String(text, UTF_8), time, weight);
+                recordCount++;
+                validLength = buffer.position();
+            }
+        } catch(IOException e) {
+            L.w(LibConst.LOG, "SuggestionHistory -- load: IOException, " + file, e);
+        } catch(BufferUnderflowException e) {
+            L.w(LibConst.LOG, "SuggestionHistory -- load: truncated, " + file, e);
+            truncate(validLength);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * 截断日志末尾因写入中断而不完整的记录
+     */
+    private void truncate(long length) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(length);
+        } catch(IOException e) {
+            L.w(LibConst.LOG, "SuggestionHistory -- truncate: IOException, " + file, e);
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+    }
+
+    private static int recordSize(int textLength) {
+        return 2 + textLength + 8 + 4;
+    }
+
+    private static void putRecord(ByteBuffer buffer, byte[] text, long time, float weight) {
+        buffer.putShort((short) text.length);
+        buffer.put(text);
+        buffer.putLong(time);
+        buffer.putFloat(weight);
+    }
+
+    private static String key(String text) {
+        return text.toLowerCase(Locale.US);
+    }
+
+    /**
+     * 等待写入日志的一条记录
+     */
+    private static class Record {
+        final String text;
+        final long time;
+        final float weight;
+
+        Record(String text, long time, float weight) {
+            this.text = text;
+            this.time = time;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 历史记录中的词语，score为time时刻的衰减得分
+     */
+    private static class Entry {
+        String text;
+        double score;
+        long time;
+
+        Entry(String text, long time) {
+            this.text = text;
+            this.time = time;
+        }
+
+        void add(String text, long time, float weight, double halfLife) {
+            if(time >= this.time) {
+                score = decay(score, time - this.time, halfLife) + weight;
+                this.time = time;
+                this.text = text;
+            } else {
+                score += decay(weight, this.time - time, halfLife);
+            }
+        }
+
+        double scoreAt(long now, double halfLife) {
+            return now > time ? decay(score, now - time, halfLife) : score;
+        }
+
+        static double decay(double score, long elapsed, double halfLife) {
+            return score * Math.pow(0.5, elapsed / halfLife);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.anchorer.lib.utils;
 
-import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.ActivityManager;
@@ -32,12 +31,8 @@ import com.anchorer.lib.model.AppInfo;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
-import java.sql.Timestamp;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.UUID;
@@ -50,7 +45,6 @@ import java.util.UUID;
  * Created by Anchorer/duruixue on 2013/8/6.
  * @author Anchorer
  */
-@SuppressLint("SimpleDateFormat")
 public class SystemUtils {
 	/**
 	 * 打开输入法键盘
@@ -141,18 +135,8 @@ public class SystemUtils {
      *               2. yyyy-MM-dd
 	 */
 	public static String getDateOfToday(String format) {
-		Calendar c = Calendar.getInstance();
-		int year = c.get(Calendar.YEAR);
-		int month = c.get(Calendar.MONTH) + 1;
-		int day = c.get(Calendar.DAY_OF_MONTH);
-		String monthStr = (month < 10) ? "0" : "";
-		monthStr += month;
-		String dayStr = (day < 10) ? "0" : "";
-		dayStr += day;
-		if(format.equals("MM-dd"))
-			return monthStr + "-" + dayStr;
-		else if(format.equals("yyyy-MM-dd"))
-			return year + "-" + monthStr + "-" + dayStr;
+		if(format.equals("MM-dd") || format.equals("yyyy-MM-dd"))
+			return DateTimeUtils.format(System.currentTimeMillis(), format);
 		return "";
 	}
 	
@@ -163,12 +147,10 @@ public class SystemUtils {
      * @param dateStr Date string
      * @param format Date string format
 	 */
-	@SuppressLint("SimpleDateFormat")
 	public static long getTimeStampFromDateTime(String dateStr, String format) {
 		if(!TextUtils.isEmpty(dateStr)) {
 			try {
-				Date date = new SimpleDateFormat(format).parse(dateStr);
-				return date.getTime();
+				return DateTimeUtils.parse(dateStr, format);
 			} catch (ParseException e) {
                 L.e(LibConst.LOG, "SystemUtils getTimeStampFromDateTime ParseException. [dateStr: " + dateStr + ", format:" + format + "]", e);
 				return 0;
@@ -187,9 +169,20 @@ public class SystemUtils {
      *                  date string format
 	 */
 	public static String getDateTimeFromTimeStamp(long stamp, String format) {
-		SimpleDateFormat df = new SimpleDateFormat(format);
-		return df.format(new Timestamp(stamp));
+		return DateTimeUtils.format(stamp, format);
 	}
+
+    /**
+     * 批量将时间戳转换成指定格式的日期时间字符串
+     * Translate a batch of time stamps to date strings of specific format
+     *
+     * @param stamps    时间戳
+     *                  time stamps
+     * @param format    date string format
+     */
+    public static String[] getDateTimeFromTimeStamp(long[] stamps, String format) {
+        return DateTimeUtils.format(stamps, format);
+    }
 	
 	/**
 	 * 将制定内容复制到剪贴板
@@ -397,6 +390,27 @@ public class SystemUtils {
 		return appList;
     }
     
+    /**
+     * 获取设备上已安装的应用信息，应用名称和图标在第一次获取时才加载
+     * Get installed applications info without loading labels or icons. They are loaded on first
+     * access, see {@link AppInfo#getAppName()} and {@link AppInfo#getAppIcon()}. Use
+     * {@link AppInfoLoader} to load labels in pages on worker threads.
+     *
+     * @param includeSystemApps	是否获取系统应用
+     *                          include system application or not
+     */
+    public static List<AppInfo> getLazyAppInfoList(Context context, boolean includeSystemApps) {
+        PackageManager packageManager = context.getPackageManager();
+        List<PackageInfo> packages = packageManager.getInstalledPackages(0);
+        List<AppInfo> appList = new ArrayList<AppInfo>(packages.size());
+        for(PackageInfo packageInfo : packages) {
+            if(!includeSystemApps && (packageInfo.applicationInfo.flags & ApplicationInfo.FLAG_SYSTEM) != 0)
+                continue;
+            appList.add(AppInfo.fromPackageInfo(packageManager, packageInfo));
+        }
+        return appList;
+    }
+
     /**
      * 获取设备上已安装应用的包名，不包含系统应用
      * Get package names of installed applications
@@ -413,7 +427,22 @@ public class SystemUtils {
     	}
     	return packList;
     }
-    
+
+    /**
+     * 判断应用是否已安装，基于{@link InstalledAppSnapshot}，快照加载成功后为常数时间，加载成功前向PackageManager查询该应用；
+     * 检查多个应用时使用{@link InstalledAppSnapshot#installedSubset}，不要获取全部包名再逐个查找
+     * Check whether an application is installed, backed by {@link InstalledAppSnapshot}: constant time
+     * once the snapshot has loaded successfully, a single PackageManager query before that.
+     * For several packages use {@link InstalledAppSnapshot#installedSubset} instead of scanning
+     * {@link #getInstalledPackageList}.
+     *
+     * @param context Context
+     * @param packageName package name of the application
+     */
+    public static boolean isAppInstalled(Context context, String packageName) {
+        return InstalledAppSnapshot.getInstance(context).isInstalled(packageName);
+    }
+
     /**
      * 卸载指定包名的应用程序
      * Uninstall application of specific package name
@@ -0,0 +1,181 @@
+package com.anchorer.lib.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.View;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Utility: TextDispatcher
+ * 输入框内容变化的分发器，用于合并连续输入产生的回调：
+ * 1. MODE_IMMEDIATE：每次变化立即分发；
+ * 2. MODE_DEBOUNCE：停止输入interval毫秒后分发最后的内容；
+ * 3. MODE_THROTTLE：每interval毫秒最多分发一次，时间片结束时补发最后的内容；
+ * 开启distinctUntilChanged后，与上一次分发内容相同时不再分发。
+ * 回调可以在设置的Executor中执行；被新输入取代的、尚未执行的回调会被取消。
+ * 必须在主线程中调用{@link #dispatch(View, CharSequence)}。
+ *
+ * Coalesces text change callbacks of an input field:
+ * 1. MODE_IMMEDIATE: dispatch every change;
+ * 2. MODE_DEBOUNCE: dispatch the latest text once input has been idle for the interval;
+ * 3. MODE_THROTTLE: dispatch at most once per interval, with a trailing dispatch of the latest text.
+ * With distinctUntilChanged, text equal to the last dispatched text is dropped. Listeners may run on
+ * an executor; a pending callback superseded by newer input is cancelled. Call dispatch() on the main thread.
+ */
+public class TextDispatcher {
+    public static final int MODE_IMMEDIATE = 0;
+    public static final int MODE_DEBOUNCE = 1;
+    public static final int MODE_THROTTLE = 2;
+
+    public static final long DEFAULT_INTERVAL = 300;
+
+    /**
+     * 内容分发回调，在主线程或设置的Executor中执行
+     * Dispatch listener, called on the main thread or on the configured executor.
+     */
+    public interface OnTextDispatchListener {
+        void onTextDispatch(View v, String text);
+    }
+
+    private final OnTextDispatchListener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable pendingDispatch = new Runnable() {
+        @Override
+        public void run() {
+            scheduled = false;
+            fire();
+        }
+    };
+
+    private int mode = MODE_DEBOUNCE;
+    private long interval = DEFAULT_INTERVAL;
+    private boolean distinctUntilChanged = true;
+    private Executor executor;
+
+    //以下状态仅在主线程中访问
+    private View pendingView;
+    private CharSequence pendingText;
+    private boolean scheduled;
+    private long lastDispatchTime;
+
+    //上一次实际回调的内容，回调执行时才更新，被取代而放弃的回调不影响重复内容的判断
+    private volatile String lastText;
+    //每次输入变化递增，回调执行前检查，以取消已被取代的回调
+    private volatile int generation;
+
+    /**
+     * 构造方法：默认为去抖模式，间隔300ms，并过滤重复内容
+     * @param listener  回调
+     */
+    public TextDispatcher(OnTextDispatchListener listener) {
+        if(listener == null)
+            throw new IllegalArgumentException("listener == null");
+        this.listener = listener;
+    }
+
+    /**
+     * 设置分发模式
+     * @param mode      {@link #MODE_IMMEDIATE}, {@link #MODE_DEBOUNCE}或{@link #MODE_THROTTLE}
+     * @param interval  去抖或节流的间隔(ms)
+     *                  debounce or throttle interval in ms
+     */
+    public void setMode(int mode, long interval) {
+        if(mode != MODE_IMMEDIATE && mode != MODE_DEBOUNCE && mode != MODE_THROTTLE)
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        if(interval < 0)
+            throw new IllegalArgumentException("interval < 0");
+        this.mode = mode;
+        this.interval = interval;
+    }
+
+    /**
+     * 设置是否过滤与上一次分发相同的内容
+     */
+    public void setDistinctUntilChanged(boolean distinctUntilChanged) {
+        this.distinctUntilChanged = distinctUntilChanged;
+    }
+
+    /**
+     * 设置执行回调的Executor，为null时在主线程中回调
+     * Set the executor running the listener, or null to call it on the main thread.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 输入框内容发生变化，在主线程中调用。text可以是输入框的Editable，分发时才读取其内容。
+     * Report a change, on the main thread. text may be the live Editable; it is read when dispatched.
+     */
+    public void dispatch(View v, CharSequence text) {
+        generation++;
+        pendingView = v;
+        pendingText = text;
+        switch(mode) {
+            case MODE_DEBOUNCE:
+                handler.removeCallbacks(pendingDispatch);
+                handler.postDelayed(pendingDispatch, interval);
+                scheduled = true;
+                break;
+            case MODE_THROTTLE:
+                if(scheduled)
+                    break;
+                long wait = lastDispatchTime + interval - SystemClock.uptimeMillis();
+                if(wait <= 0) {
+                    fire();
+                } else {
+                    handler.postDelayed(pendingDispatch, wait);
+                    scheduled = true;
+                }
+                break;
+            default:
+                fire();
+                break;
+        }
+    }
+
+    /**
+     * 取消尚未执行的回调
+     * Cancel the pending callback, if any.
+     */
+    public void cancel() {
+        generation++;
+        handler.removeCallbacks(pendingDispatch);
+        scheduled = false;
+        pendingView = null;
+        pendingText = null;
+    }
+
+    private void fire() {
+        CharSequence text = pendingText;
+        final View view = pendingView;
+        pendingText = null;
+        pendingView = null;
+        if(text == null)
+            return;
+        final String content = text.toString();
+        lastDispatchTime = SystemClock.uptimeMillis();
+        if(distinctUntilChanged && content.equals(lastText))
+            return;
+
+        Executor target = executor;
+        if(target == null) {
+            lastText = content;
+            listener.onTextDispatch(view, content);
+            return;
+        }
+        final int expected = generation;
+        target.execute(new Runnable() {
+            @Override
+            public void run() {
+                //执行前已有新的输入，放弃本次回调
+                if(expected != generation)
+                    return;
+                lastText = content;
+                listener.onTextDispatch(view, content);
+            }
+        });
+    }
+}
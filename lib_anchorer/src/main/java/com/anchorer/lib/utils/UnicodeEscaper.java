@@ -0,0 +1,195 @@
+package com.anchorer.lib.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Utility: UnicodeEscaper
+ * 单次扫描的Unicode转义/反转义（\\uXXXX），时间复杂度为线性，流式接口的内存占用固定。
+ * 代理对（Surrogate Pair）按两个UTF-16字符分别转义，反转义后重新组成代理对。
+ * Single-pass \\uXXXX escaping and unescaping in linear time, with bounded-memory streaming variants.
+ * Surrogate pairs are escaped as their two UTF-16 units and recombined when unescaped.
+ */
+public class UnicodeEscaper {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int STREAM_BUFFER_SIZE = 4 * 1024;
+
+    //反转义状态：普通字符 / 读到'\' / 读到"\\u"及若干十六进制位
+    private static final int STATE_NORMAL = 0;
+    private static final int STATE_BACKSLASH = 1;
+    private static final int STATE_HEX = 2;
+
+    /**
+     * 将字符串转义成\\uXXXX形式
+     * Escape a string into \\uXXXX form.
+     *
+     * @param str           Original string
+     * @param escapeAscii   Escape ASCII chars (0x00-0x7F) too, or keep them as they are
+     */
+    public static String escape(CharSequence str, boolean escapeAscii) {
+        int length = str.length();
+        int escapedLength = 0;
+        for(int i = 0; i < length; i++) {
+            escapedLength += (escapeAscii || str.charAt(i) > 0x7F) ? 6 : 1;
+        }
+        char[] out = new char[escapedLength];
+        int pos = 0;
+        for(int i = 0; i < length; i++) {
+            pos = escape(str.charAt(i), escapeAscii, out, pos);
+        }
+        return new String(out);
+    }
+
+    /**
+     * 将\\uXXXX形式的转义字符还原，不含转义字符时直接返回原字符串
+     * Unescape \\uXXXX sequences. The original string is returned if it contains none.
+     */
+    public static String unescape(String str) {
+        int first = str.indexOf("\\u");
+        if(first < 0)
+            return str;
+        int length = str.length();
+        StringBuilder builder = new StringBuilder(length);
+        builder.append(str, 0, first);
+        int i = first;
+        while(i < length) {
+            char c = str.charAt(i);
+            if(c == '\\' && i + 5 < length && str.charAt(i + 1) == 'u') {
+                int value = parseHex4(str, i + 2);
+                if(value >= 0) {
+                    builder.append((char) value);
+                    i += 6;
+                    continue;
+                }
+            }
+            builder.append(c);
+            i++;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 流式转义，从Reader读取原文，写入Writer，不关闭任何流
+     * Stream-escape from a Reader into a Writer. Neither is closed.
+     */
+    public static void escape(Reader in, Writer out, boolean escapeAscii) throws IOException {
+        char[] input = new char[STREAM_BUFFER_SIZE];
+        char[] output = new char[STREAM_BUFFER_SIZE * 6];
+        int read;
+        while((read = in.read(input, 0, input.length)) != -1) {
+            int pos = 0;
+            for(int i = 0; i < read; i++) {
+                pos = escape(input[i], escapeAscii, output, pos);
+            }
+            out.write(output, 0, pos);
+        }
+        out.flush();
+    }
+
+    /**
+     * 流式反转义，从Reader读取转义文本，写入Writer，不关闭任何流；跨越缓冲区边界的转义序列也能正确处理
+     * Stream-unescape from a Reader into a Writer. Neither is closed. Sequences split across
+     * buffer boundaries are handled.
+     */
+    public static void unescape(Reader in, Writer out) throws IOException {
+        char[] input = new char[STREAM_BUFFER_SIZE];
+        char[] output = new char[STREAM_BUFFER_SIZE + 6];
+        char[] pending = new char[6];
+        int pendingLength = 0;
+        int state = STATE_NORMAL;
+        int value = 0;
+        int read;
+        while((read = in.read(input, 0, input.length)) != -1) {
+            int pos = 0;
+            for(int i = 0; i < read; i++) {
+                char c = input[i];
+                if(state == STATE_BACKSLASH) {
+                    if(c == 'u') {
+                        pending[pendingLength++] = c;
+                        state = STATE_HEX;
+                        value = 0;
+                        continue;
+                    }
+                    System.arraycopy(pending, 0, output, pos, pendingLength);
+                    pos += pendingLength;
+                    pendingLength = 0;
+                    state = STATE_NORMAL;
+                } else if(state == STATE_HEX) {
+                    int digit = hexValue(c);
+                    if(digit >= 0) {
+                        value = (value << 4) | digit;
+                        pending[pendingLength++] = c;
+                        if(pendingLength == 6) {
+                            output[pos++] = (char) value;
+                            pendingLength = 0;
+                            state = STATE_NORMAL;
+                        }
+                        continue;
+                    }
+                    System.arraycopy(pending, 0, output, pos, pendingLength);
+                    pos += pendingLength;
+                    pendingLength = 0;
+                    state = STATE_NORMAL;
+                }
+
+                if(c == '\\') {
+                    pending[pendingLength++] = c;
+                    state = STATE_BACKSLASH;
+                } else {
+                    output[pos++] = c;
+                }
+            }
+            out.write(output, 0, pos);
+        }
+        out.write(pending, 0, pendingLength);
+        out.flush();
+    }
+
+    /**
+     * 转义单个字符写入数组
+     * @return  End offset in out
+     */
+    private static int escape(char c, boolean escapeAscii, char[] out, int pos) {
+        if(!escapeAscii && c <= 0x7F) {
+            out[pos++] = c;
+            return pos;
+        }
+        out[pos++] = '\\';
+        out[pos++] = 'u';
+        out[pos++] = HEX_DIGITS[(c >> 12) & 0x0F];
+        out[pos++] = HEX_DIGITS[(c >> 8) & 0x0F];
+        out[pos++] = HEX_DIGITS[(c >> 4) & 0x0F];
+        out[pos++] = HEX_DIGITS[c & 0x0F];
+        return pos;
+    }
+
+    /**
+     * 解析4位十六进制数
+     * @return  Parsed value, or -1 if not 4 hex digits
+     */
+    private static int parseHex4(String str, int offset) {
+        int value = 0;
+        for(int i = offset; i < offset + 4; i++) {
+            int digit = hexValue(str.charAt(i));
+            if(digit < 0)
+                return -1;
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * ASCII十六进制字符的值
+     * @return  Value of an ASCII hex digit, or -1
+     */
+    private static int hexValue(char c) {
+        if(c >= '0' && c <= '9')
+            return c - '0';
+        if(c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        if(c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        return -1;
+    }
+}
@@ -0,0 +1,191 @@
+package com.anchorer.lib.utils;
+
+/**
+ * Utility: UrlView
+ * URL的零拷贝解析视图：只记录scheme、host、path、扩展名、query、fragment在原字符串中的位置，不创建子字符串。
+ * 同一个实例可以通过parse()反复解析不同的URL，在导航等高频路径上不产生对象。
+ * Zero-copy URL view: only the offsets of scheme, host, path, extension, query and fragment in the
+ * original string are kept, no substrings are created. One instance can parse() URL after URL,
+ * so hot paths such as navigation allocate nothing.
+ */
+public class UrlView {
+    private CharSequence url;
+    private int schemeEnd;
+    private int hostStart, hostEnd;
+    private int pathStart, pathEnd;
+    private int extensionStart;
+    private int queryStart, queryEnd;
+    private int fragmentStart;
+
+    public UrlView() {
+    }
+
+    public UrlView(CharSequence url) {
+        parse(url);
+    }
+
+    /**
+     * 解析URL，覆盖之前的解析结果
+     * Parse an URL, replacing the previous result.
+     *
+     * @return  this
+     */
+    public UrlView parse(CharSequence url) {
+        this.url = url;
+        int length = url.length();
+
+        //scheme: ALPHA *( ALPHA / DIGIT / "+" / "-" / "." ) ":"
+        schemeEnd = -1;
+        for(int i = 0; i < length; i++) {
+            char c = url.charAt(i);
+            if(c == ':') {
+                if(i > 0)
+                    schemeEnd = i;
+                break;
+            }
+            boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if(!letter && (i == 0 || !((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.')))
+                break;
+        }
+
+        int pos = schemeEnd + 1;
+        hostStart = hostEnd = -1;
+        if(pos + 1 < length && url.charAt(pos) == '/' && url.charAt(pos + 1) == '/') {
+            int authorityStart = pos + 2;
+            int authorityEnd = indexOfAny(url, authorityStart, length, "/?#");
+            //去掉userinfo和端口
+            hostStart = authorityStart;
+            for(int i = authorityEnd - 1; i >= authorityStart; i--) {
+                if(url.charAt(i) == '@') {
+                    hostStart = i + 1;
+                    break;
+                }
+            }
+            if(hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+                int close = indexOfAny(url, hostStart, authorityEnd, "]");
+                hostEnd = close < authorityEnd ? close + 1 : authorityEnd;
+            } else {
+                hostEnd = indexOfAny(url, hostStart, authorityEnd, ":");
+            }
+            pos = authorityEnd;
+        }
+
+        pathStart = pos;
+        pathEnd = indexOfAny(url, pos, length, "?#");
+        int fragment = indexOfAny(url, pathEnd, length, "#");
+        if(pathEnd < length && url.charAt(pathEnd) == '?') {
+            queryStart = pathEnd + 1;
+            queryEnd = fragment;
+        } else {
+            queryStart = queryEnd = -1;
+        }
+        fragmentStart = fragment < length ? fragment + 1 : -1;
+
+        //扩展名：path最后一段中最后一个'.'之后的部分
+        extensionStart = -1;
+        for(int i = pathEnd - 1; i >= pathStart; i--) {
+            char c = url.charAt(i);
+            if(c == '/')
+                break;
+            if(c == '.') {
+                extensionStart = i + 1;
+                break;
+            }
+        }
+        return this;
+    }
+
+    public CharSequence getUrl() {
+        return url;
+    }
+
+    /**
+     * 获取scheme，不存在时返回null
+     * Get the scheme, or null if absent.
+     */
+    public CharSlice getScheme() {
+        return schemeEnd < 0 ? null : new CharSlice(url, 0, schemeEnd);
+    }
+
+    /**
+     * 获取host，不存在时返回null
+     * Get the host, or null if there is no authority.
+     */
+    public CharSlice getHost() {
+        return hostStart < 0 ? null : new CharSlice(url, hostStart, hostEnd);
+    }
+
+    public CharSlice getPath() {
+        return new CharSlice(url, pathStart, pathEnd);
+    }
+
+    /**
+     * 获取扩展名（不含'.'），不存在时返回null
+     * Get the file extension of the path, without the dot, or null if absent.
+     */
+    public CharSlice getExtension() {
+        return extensionStart < 0 ? null : new CharSlice(url, extensionStart, pathEnd);
+    }
+
+    /**
+     * 获取query（不含'?'），不存在时返回null
+     * Get the query, without the '?', or null if absent.
+     */
+    public CharSlice getQuery() {
+        return queryStart < 0 ? null : new CharSlice(url, queryStart, queryEnd);
+    }
+
+    /**
+     * 获取fragment（不含'#'），不存在时返回null
+     * Get the fragment, without the '#', or null if absent.
+     */
+    public CharSlice getFragment() {
+        return fragmentStart < 0 ? null : new CharSlice(url, fragmentStart, url.length());
+    }
+
+    /**
+     * 不区分大小写比较scheme，不创建对象
+     * Compare the scheme ignoring case, without creating objects.
+     */
+    public boolean schemeEquals(String scheme) {
+        return schemeEnd >= 0 && CharSlice.regionEqualsIgnoreCase(url, 0, schemeEnd, scheme);
+    }
+
+    /**
+     * 不区分大小写比较扩展名，不创建对象
+     * Compare the extension ignoring case, without creating objects.
+     */
+    public boolean extensionEquals(String extension) {
+        return extensionStart >= 0 && CharSlice.regionEqualsIgnoreCase(url, extensionStart, pathEnd, extension);
+    }
+
+    /**
+     * 查找扩展名对应的值，不创建对象
+     * Look up the extension in a trie, without creating objects.
+     *
+     * @return  The mapped value, or null if there is no extension or no mapping
+     */
+    public <T> T lookupExtension(ExtensionTrie<T> trie) {
+        return extensionStart < 0 ? null : trie.get(url, extensionStart, pathEnd);
+    }
+
+    public int getExtensionStart() {
+        return extensionStart;
+    }
+
+    public int getPathStart() {
+        return pathStart;
+    }
+
+    public int getPathEnd() {
+        return pathEnd;
+    }
+
+    private static int indexOfAny(CharSequence str, int from, int to, String chars) {
+        for(int i = from; i < to; i++) {
+            if(chars.indexOf(str.charAt(i)) >= 0)
+                return i;
+        }
+        return to;
+    }
+}
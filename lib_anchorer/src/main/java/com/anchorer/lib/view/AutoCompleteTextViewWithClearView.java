@@ -11,6 +11,12 @@ import android.widget.AutoCompleteTextView;
 import android.widget.ImageView;
 import android.widget.TextView.OnEditorActionListener;
 
+import com.anchorer.lib.utils.SuggestionHistory;
+import com.anchorer.lib.utils.TextDispatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
 /**
  * View: EditTextWithClearView
  * 带有清除按钮的EditText，该控件将一个EditText控件与清除按钮（类型为ImageView）绑定在一起，并内置了清除按钮的操作。
@@ -22,6 +28,12 @@ public class AutoCompleteTextViewWithClearView {
 	//包含的控件
 	private AutoCompleteTextView editText;
 	private ImageView clearView;
+	//前缀搜索适配器
+	private PrefixSuggestionAdapter suggestionAdapter;
+	//输入历史记录
+	private SuggestionHistory suggestionHistory;
+	//内容变化的分发器
+	private TextDispatcher textDispatcher;
 
 	/**
 	 * 构造方法
@@ -59,11 +71,15 @@ public class AutoCompleteTextViewWithClearView {
 
 		@Override
 		public void onTextChanged(CharSequence s, int start, int before, int count) {
+			if(suggestionAdapter != null)
+				suggestionAdapter.onQueryChanged(s);
 			String content = s.toString();
 			if(TextUtils.isEmpty(content))
 				clearView.setVisibility(View.GONE);
 			else
 				clearView.setVisibility(View.VISIBLE);
+			if(textDispatcher != null)
+				textDispatcher.dispatch(editText, s);
 		}
 	}
 	
@@ -78,6 +94,16 @@ public class AutoCompleteTextViewWithClearView {
 		}
 	}
 	
+	/**
+	 * 设置内容变化的分发器，以去抖、节流或过滤重复内容的方式回调，为null时取消
+	 * @param dispatcher	TextDispatcher
+	 */
+	public void setTextDispatcher(TextDispatcher dispatcher) {
+		if(textDispatcher != null)
+			textDispatcher.cancel();
+		textDispatcher = dispatcher;
+	}
+
 	/**
 	 * 获取输入框中的内容
 	 */
@@ -143,14 +169,85 @@ public class AutoCompleteTextViewWithClearView {
 
     /**
      * 为AutoCompleteTextView设置适配器
+     * 适配器中的条目会被建立有序索引，以前缀二分查找代替ArrayAdapter的线性过滤，匹配规则与ArrayAdapter相同（整个条目或其中任一单词以输入开头），
+     * 适配器内容变化后索引随之重建，条目视图仍由原适配器渲染。与ArrayAdapter相同，不限制候选数量。
      * @param adapter   适配器
      */
     public void setAutoCompleteAdapter(ArrayAdapter<String> adapter) {
         if(editText != null) {
+            setAutoCompleteAdapter(new PrefixSuggestionAdapter(adapter));
+        }
+    }
+
+    /**
+     * 为AutoCompleteTextView设置适配器，并限制每次展示的候选数量，候选词很多时可减少下拉列表的条目
+     * @param adapter       适配器
+     * @param maxResults    每次最多展示的候选数量
+     */
+    public void setAutoCompleteAdapter(ArrayAdapter<String> adapter, int maxResults) {
+        if(editText != null) {
+            setAutoCompleteAdapter(new PrefixSuggestionAdapter(adapter, maxResults,
+                    PrefixSuggestionAdapter.DEFAULT_CACHE_SIZE));
+        }
+    }
+
+    /**
+     * 为AutoCompleteTextView设置前缀搜索适配器
+     * @param adapter   前缀搜索适配器
+     */
+    public void setAutoCompleteAdapter(PrefixSuggestionAdapter adapter) {
+        if(editText != null) {
+            if(suggestionAdapter != adapter)
+                releaseSuggestionAdapter();
+            suggestionAdapter = adapter;
+            suggestionHistory = null;
             editText.setAdapter(adapter);
         }
     }
 
+    /**
+     * 以输入历史记录作为自动补全的候选，候选按衰减后的使用频率排序，将替换已设置的适配器
+     * @param history   输入历史记录
+     */
+    public void setSuggestionHistory(SuggestionHistory history) {
+        if(editText != null) {
+            releaseSuggestionAdapter();
+            suggestionHistory = history;
+            editText.setAdapter(new HistorySuggestionAdapter(editText.getContext(), history));
+        }
+    }
+
+    /**
+     * 停止之前的前缀搜索适配器对其原适配器的监听
+     */
+    private void releaseSuggestionAdapter() {
+        if(suggestionAdapter != null) {
+            suggestionAdapter.release();
+            suggestionAdapter = null;
+        }
+    }
+
+    /**
+     * 将输入框当前的内容记录到输入历史中，一般在用户提交输入时调用
+     */
+    public void recordInput() {
+        if(suggestionHistory != null) {
+            suggestionHistory.record(getText());
+        }
+    }
+
+    /**
+     * 以候选词集合为AutoCompleteTextView设置自动补全，使用系统默认的下拉条目布局
+     * @param words 候选词
+     */
+    public void setAutoCompleteDictionary(Collection<String> words) {
+        if(editText != null) {
+            ArrayAdapter<String> adapter = new ArrayAdapter<String>(editText.getContext(),
+                    android.R.layout.simple_dropdown_item_1line, new ArrayList<String>(words));
+            setAutoCompleteAdapter(new PrefixSuggestionAdapter(adapter));
+        }
+    }
+
     /**
      * 设置触发自动补全的最小字符数
      * @param threshold 字符数
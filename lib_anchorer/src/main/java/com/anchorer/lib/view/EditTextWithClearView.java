@@ -10,6 +10,9 @@ import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.TextView.OnEditorActionListener;
 
+import com.anchorer.lib.utils.CharSlice;
+import com.anchorer.lib.utils.TextDispatcher;
+
 /**
  * View: EditTextWithClearView
  * 带有清除按钮的EditText，该控件将一个EditText控件与清除按钮（类型为ImageView）绑定在一起，并内置了清除按钮的操作。
@@ -28,6 +31,32 @@ public class EditTextWithClearView {
     }
     private EditTextCallback mCallback;
 
+    /**
+     * 增量的内容变化回调，不复制输入框中的内容
+     * Incremental text change callback. Nothing is copied out of the edit text.
+     */
+    public interface TextDeltaCallback {
+        /**
+         * 输入框内容发生变化
+         * @param v             输入框
+         * @param text          变化后的全部内容，仅在回调期间有效
+         *                      full text after the change, only valid during the call
+         * @param start         变化的起始位置
+         * @param removed       被替换掉的字符数
+         * @param inserted      新插入的内容，是text的视图，仅在回调期间有效
+         *                      inserted characters, a view over text valid only during the call
+         * @param emptyChanged  内容是否在空与非空之间发生了切换，切换后的状态由text.length()判断
+         *                      whether the text switched between empty and non-empty
+         */
+        void onTextDelta(View v, CharSequence text, int start, int removed, CharSequence inserted, boolean emptyChanged);
+    }
+    private TextDeltaCallback mDeltaCallback;
+
+    //上一次变化后内容是否为空
+    private boolean mEmpty;
+    //内容变化的分发器
+    private TextDispatcher mDispatcher;
+
     /**
      * 构造方法
      * @param editText	输入框
@@ -50,11 +79,8 @@ public class EditTextWithClearView {
      * 初始化ClearView的显示
      */
     private void initClearView() {
-        String content = editText.getText().toString();
-        if(TextUtils.isEmpty(content))
-            clearView.setVisibility(View.INVISIBLE);
-        else
-            clearView.setVisibility(View.VISIBLE);
+        mEmpty = TextUtils.isEmpty(editText.getText());
+        clearView.setVisibility(mEmpty ? View.INVISIBLE : View.VISIBLE);
     }
 
     /**
@@ -69,15 +95,23 @@ public class EditTextWithClearView {
 
         @Override
         public void onTextChanged(CharSequence s, int start, int before, int count) {
-            String content = s.toString();
-            if(TextUtils.isEmpty(content)) {
-                clearView.setVisibility(View.INVISIBLE);
-            } else {
-                clearView.setVisibility(View.VISIBLE);
+            boolean empty = s.length() == 0;
+            boolean emptyChanged = empty != mEmpty;
+            mEmpty = empty;
+            //与清除按钮当前的可见性比较，按钮被setClearViewVisibility隐藏后输入内容时也会重新显示
+            int visibility = empty ? View.INVISIBLE : View.VISIBLE;
+            if(clearView.getVisibility() != visibility) {
+                clearView.setVisibility(visibility);
             }
 
+            if(mDeltaCallback != null) {
+                mDeltaCallback.onTextDelta(editText, s, start, before, new CharSlice(s, start, start + count), emptyChanged);
+            }
             if(mCallback != null) {
-                mCallback.onTextChanged(editText, content);
+                mCallback.onTextChanged(editText, s.toString());
+            }
+            if(mDispatcher != null) {
+                mDispatcher.dispatch(editText, s);
             }
         }
     }
@@ -96,6 +130,25 @@ public class EditTextWithClearView {
         }
     }
 
+    /**
+     * 设置增量的内容变化回调
+     * @param callback  TextDeltaCallback
+     */
+    public void setTextDeltaCallback(TextDeltaCallback callback) {
+        this.mDeltaCallback = callback;
+    }
+
+    /**
+     * 设置内容变化的分发器，以去抖、节流或过滤重复内容的方式回调，为null时取消
+     * @param dispatcher    TextDispatcher
+     */
+    public void setTextDispatcher(TextDispatcher dispatcher) {
+        if(mDispatcher != null) {
+            mDispatcher.cancel();
+        }
+        this.mDispatcher = dispatcher;
+    }
+
     /**
      * 获取输入框中的内容
      */
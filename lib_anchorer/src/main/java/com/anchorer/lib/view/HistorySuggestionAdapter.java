@@ -0,0 +1,110 @@
+package com.anchorer.lib.view;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+import com.anchorer.lib.utils.SuggestionHistory;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adapter: HistorySuggestionAdapter
+ * 以输入历史记录作为候选的自动补全适配器，候选按衰减后的使用频率排序，查询在Filter的后台线程中执行。
+ * Autocomplete adapter offering the user's own past inputs from a {@link SuggestionHistory},
+ * ranked by decayed use counts. Queries run on the filter thread.
+ */
+public class HistorySuggestionAdapter extends BaseAdapter implements Filterable {
+    public static final int DEFAULT_MAX_RESULTS = 10;
+
+    private final LayoutInflater inflater;
+    private final int resource;
+    private final SuggestionHistory history;
+    private final int maxResults;
+
+    private List<String> results = Collections.emptyList();
+    private Filter filter;
+
+    /**
+     * 构造方法，使用系统默认的下拉条目布局
+     * @param context   Context
+     * @param history   输入历史记录
+     */
+    public HistorySuggestionAdapter(Context context, SuggestionHistory history) {
+        this(context, android.R.layout.simple_dropdown_item_1line, history, DEFAULT_MAX_RESULTS);
+    }
+
+    /**
+     * 构造方法
+     * @param context       Context
+     * @param resource      条目布局，根节点须为TextView
+     *                      row layout whose root is a TextView
+     * @param history       输入历史记录
+     * @param maxResults    最多展示的候选数量
+     */
+    public HistorySuggestionAdapter(Context context, int resource, SuggestionHistory history, int maxResults) {
+        this.inflater = LayoutInflater.from(context);
+        this.resource = resource;
+        this.history = history;
+        this.maxResults = maxResults;
+    }
+
+    public SuggestionHistory getHistory() {
+        return history;
+    }
+
+    @Override
+    public int getCount() {
+        return results.size();
+    }
+
+    @Override
+    public String getItem(int position) {
+        return results.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        View view = convertView != null ? convertView : inflater.inflate(resource, parent, false);
+        ((TextView) view).setText(getItem(position));
+        return view;
+    }
+
+    @Override
+    public Filter getFilter() {
+        if(filter == null) {
+            filter = new Filter() {
+                @Override
+                protected FilterResults performFiltering(CharSequence constraint) {
+                    List<String> list = history.query(constraint, maxResults);
+                    FilterResults filterResults = new FilterResults();
+                    filterResults.values = list;
+                    filterResults.count = list.size();
+                    return filterResults;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                protected void publishResults(CharSequence constraint, FilterResults filterResults) {
+                    results = (List<String>) filterResults.values;
+                    if(filterResults.count > 0)
+                        notifyDataSetChanged();
+                    else
+                        notifyDataSetInvalidated();
+                }
+            };
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,434 @@
+package com.anchorer.lib.view;
+
+import android.database.DataSetObserver;
+import android.support.v4.util.LruCache;
+import android.text.TextUtils;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.ListAdapter;
+
+import com.anchorer.lib.collection.IntArrayList;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Adapter: PrefixSuggestionAdapter
+ * 基于有序数组的前缀搜索适配器，用于替代ArrayAdapter自带的线性扫描过滤，匹配规则与ArrayAdapter一致：
+ * 候选词本身或其中任一以空格分隔的单词以输入内容开头（忽略大小写），结果按原适配器中的顺序排列。
+ * 1. 每个候选词中每个单词的起始位置作为一个索引项，按忽略大小写的顺序排序后以二分查找定位前缀所在的连续区间；
+ * 2. 索引在过滤时于后台线程中构建，原适配器内容变化（notifyDataSetChanged）后重建，并按最近的输入重新过滤；
+ * 3. 已查询前缀的区间会被缓存，输入延长时只在上一个前缀的区间内继续查找；
+ * 4. 视图的渲染仍委托给原适配器，调用方的布局无需改动。
+ * 原适配器的getCount和getItem会在过滤线程中调用，与ArrayAdapter自身的过滤相同。
+ *
+ * Prefix search adapter backed by a sorted array, replacing ArrayAdapter's linear filtering with the
+ * same matching rule: a candidate matches if it, or any of its space-separated words, starts with the
+ * input ignoring case. Results keep the source adapter's order.
+ * 1. Every word start of every candidate is an index entry; entries are sorted ignoring case and a
+ *    prefix is located by binary search;
+ * 2. The index is built on the filter thread and rebuilt when the source adapter notifies a change,
+ *    after which the latest input is filtered again;
+ * 3. Cached prefix ranges are narrowed as the user keeps typing, and queries superseded by newer
+ *    input (see {@link #onQueryChanged(CharSequence)}) are dropped without publishing;
+ * 4. Rows are rendered by the wrapped source adapter.
+ * The source's getCount() and getItem() are called on the filter thread, as ArrayAdapter's own
+ * filter does.
+ */
+public class PrefixSuggestionAdapter extends BaseAdapter implements Filterable {
+    //默认不限制候选数量，与ArrayAdapter一致
+    public static final int DEFAULT_MAX_RESULTS = Integer.MAX_VALUE;
+    public static final int DEFAULT_CACHE_SIZE = 128;
+
+    private static final int[] NO_RESULTS = new int[0];
+
+    private final ListAdapter source;
+    private final int maxResults;
+    private final int cacheSize;
+
+    //原适配器内容的版本，每次变化时递增，只在主线程中修改
+    private volatile int sourceVersion;
+    //当前索引，重建时整体替换
+    private volatile Index index;
+
+    //最近一次输入的内容，用于丢弃过期的查询
+    private volatile String latestQuery;
+
+    //以下字段仅在主线程中访问
+    //当前展示的结果：所属的索引及结果在原适配器中的位置
+    private Index resultIndex;
+    private int[] resultPositions = NO_RESULTS;
+    //最近一次发布结果的输入，原适配器变化后按其重新过滤
+    private CharSequence lastConstraint;
+
+    private PrefixFilter filter;
+    private boolean released;
+
+    private final DataSetObserver sourceObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            onSourceChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            onSourceChanged();
+        }
+    };
+
+    /**
+     * 构造方法，不限制候选数量
+     * Shows every match, as ArrayAdapter does.
+     * @param source    原适配器，其全部条目作为候选词，并负责各条目视图的渲染
+     *                  source adapter supplying the candidates and rendering the rows
+     */
+    public PrefixSuggestionAdapter(ListAdapter source) {
+        this(source, DEFAULT_MAX_RESULTS, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * 构造方法
+     * @param source        原适配器
+     * @param maxResults    每次最多展示的候选数量，{@link #DEFAULT_MAX_RESULTS}为不限制
+     *                      most matches to show, {@link #DEFAULT_MAX_RESULTS} for no limit
+     * @param cacheSize     缓存的前缀区间数量
+     */
+    public PrefixSuggestionAdapter(ListAdapter source, int maxResults, int cacheSize) {
+        if(source == null)
+            throw new IllegalArgumentException("source == null");
+        if(maxResults <= 0)
+            throw new IllegalArgumentException("maxResults <= 0");
+        this.source = source;
+        this.maxResults = maxResults;
+        this.cacheSize = Math.max(1, cacheSize);
+        source.registerDataSetObserver(sourceObserver);
+    }
+
+    /**
+     * 通知适配器输入框内容发生变化。正在后台执行、且与最新输入不一致的查询将被丢弃。
+     * Tell the adapter about the latest input so that superseded in-flight queries are dropped.
+     */
+    public void onQueryChanged(CharSequence query) {
+        latestQuery = query == null ? null : query.toString();
+    }
+
+    /**
+     * 获取候选词总数
+     */
+    public int getDictionarySize() {
+        Index current = index;
+        return current != null && current.version == sourceVersion ? current.words.length : source.getCount();
+    }
+
+    /**
+     * 停止监听原适配器的变化，不再使用本适配器时调用
+     * Stop observing the source adapter. Call when this adapter is no longer used. Calling it
+     * again does nothing.
+     */
+    public void release() {
+        //重复注销会抛出IllegalStateException
+        if(!released) {
+            released = true;
+            source.unregisterDataSetObserver(sourceObserver);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return resultPositions.length;
+    }
+
+    @Override
+    public String getItem(int position) {
+        return resultIndex.words[resultPositions[position]];
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        return source.getView(resultPositions[position], convertView, parent);
+    }
+
+    @Override
+    public Filter getFilter() {
+        if(filter == null)
+            filter = new PrefixFilter();
+        return filter;
+    }
+
+    /**
+     * 原适配器内容变化：旧结果中的位置已失效，清空后按最近的输入重新过滤
+     */
+    private void onSourceChanged() {
+        sourceVersion++;
+        resultIndex = null;
+        resultPositions = NO_RESULTS;
+        notifyDataSetChanged();
+        if(lastConstraint != null)
+            getFilter().filter(lastConstraint);
+    }
+
+    /**
+     * 获取与原适配器当前内容一致的索引，必要时在调用线程中重建
+     */
+    private Index ensureIndex() {
+        int version = sourceVersion;
+        Index current = index;
+        if(current != null && current.version == version)
+            return current;
+        synchronized(this) {
+            current = index;
+            if(current != null && current.version == version)
+                return current;
+            int count = source.getCount();
+            String[] words = new String[count];
+            for(int i = 0; i < count; i++) {
+                Object item = source.getItem(i);
+                words[i] = item == null ? "" : item.toString();
+            }
+            //读取期间原适配器若再次变化，版本号不一致，下次过滤时重建
+            current = new Index(words, version, cacheSize);
+            index = current;
+            return current;
+        }
+    }
+
+    private boolean isStale(CharSequence constraint) {
+        String latest = latestQuery;
+        return latest != null && !TextUtils.equals(latest, constraint);
+    }
+
+    /**
+     * 按忽略大小写的顺序比较a从aOffset开始的部分与b从bOffset开始的部分，规则与String.CASE_INSENSITIVE_ORDER相同
+     */
+    private static int compareIgnoreCase(String a, int aOffset, String b, int bOffset) {
+        int aLength = a.length() - aOffset;
+        int bLength = b.length() - bOffset;
+        int length = Math.min(aLength, bLength);
+        for(int i = 0; i < length; i++) {
+            char c1 = a.charAt(aOffset + i);
+            char c2 = b.charAt(bOffset + i);
+            if(c1 != c2) {
+                c1 = Character.toUpperCase(c1);
+                c2 = Character.toUpperCase(c2);
+                if(c1 != c2) {
+                    c1 = Character.toLowerCase(c1);
+                    c2 = Character.toLowerCase(c2);
+                    if(c1 != c2)
+                        return c1 - c2;
+                }
+            }
+        }
+        return aLength - bLength;
+    }
+
+    /**
+     * 前缀索引：每个候选词中每个单词的起始位置为一个索引项，按该位置之后的内容排序
+     */
+    private static class Index {
+        final int version;
+        //按原适配器中的位置排列的候选词
+        final String[] words;
+        //排序后的索引项：所属候选词的位置及单词的起始偏移
+        final int[] entryWords;
+        final int[] entryOffsets;
+        final LruCache<String, int[]> rangeCache;
+
+        Index(String[] words, int version, int cacheSize) {
+            this.version = version;
+            this.words = words;
+            this.rangeCache = new LruCache<String, int[]>(cacheSize);
+
+            IntArrayList wordList = new IntArrayList(words.length);
+            IntArrayList offsetList = new IntArrayList(words.length);
+            for(int i = 0; i < words.length; i++) {
+                String word = words[i];
+                wordList.add(i);
+                offsetList.add(0);
+                //与ArrayAdapter的split(" ")一致，空格之后的每个位置都是一个单词的开头
+                for(int j = 0; j < word.length() - 1; j++) {
+                    if(word.charAt(j) == ' ') {
+                        wordList.add(i);
+                        offsetList.add(j + 1);
+                    }
+                }
+            }
+            int[] unsortedWords = wordList.toArray();
+            int[] unsortedOffsets = offsetList.toArray();
+            int n = unsortedWords.length;
+            int[] order = new int[n];
+            for(int i = 0; i < n; i++)
+                order[i] = i;
+            mergeSort(order, new int[n], unsortedWords, unsortedOffsets, 0, n);
+            entryWords = new int[n];
+            entryOffsets = new int[n];
+            for(int i = 0; i < n; i++) {
+                entryWords[i] = unsortedWords[order[i]];
+                entryOffsets[i] = unsortedOffsets[order[i]];
+            }
+        }
+
+        private void mergeSort(int[] a, int[] tmp, int[] wordOf, int[] offsetOf, int from, int to) {
+            if(to - from < 2)
+                return;
+            int mid = (from + to) >>> 1;
+            mergeSort(a, tmp, wordOf, offsetOf, from, mid);
+            mergeSort(a, tmp, wordOf, offsetOf, mid, to);
+            if(compareEntries(a[mid - 1], a[mid], wordOf, offsetOf) <= 0)
+                return;
+            System.arraycopy(a, from, tmp, from, to - from);
+            int i = from, j = mid, k = from;
+            while(i < mid && j < to)
+                a[k++] = compareEntries(tmp[j], tmp[i], wordOf, offsetOf) < 0 ? tmp[j++] : tmp[i++];
+            while(i < mid)
+                a[k++] = tmp[i++];
+            while(j < to)
+                a[k++] = tmp[j++];
+        }
+
+        private int compareEntries(int x, int y, int[] wordOf, int[] offsetOf) {
+            return compareIgnoreCase(words[wordOf[x]], offsetOf[x], words[wordOf[y]], offsetOf[y]);
+        }
+
+        /**
+         * 查询候选词，结果为其在原适配器中的位置，按位置升序排列，最多maxResults个
+         */
+        int[] search(CharSequence constraint, int maxResults) {
+            if(TextUtils.isEmpty(constraint)) {
+                int count = Math.min(words.length, maxResults);
+                int[] positions = new int[count];
+                for(int i = 0; i < count; i++)
+                    positions[i] = i;
+                return positions;
+            }
+            String prefix = constraint.toString();
+            int[] range = lookup(prefix);
+            //单词中不含空格，含空格的输入只能匹配候选词的开头
+            boolean wholeOnly = prefix.indexOf(' ') >= 0;
+            int count = 0;
+            int[] positions = new int[range[1] - range[0]];
+            for(int i = range[0]; i < range[1]; i++) {
+                if(!wholeOnly || entryOffsets[i] == 0)
+                    positions[count++] = entryWords[i];
+            }
+            if(count == 0)
+                return NO_RESULTS;
+            //同一候选词可能有多个单词匹配，排序后去重
+            Arrays.sort(positions, 0, count);
+            int n = 0;
+            for(int i = 0; i < count && n < maxResults; i++) {
+                if(n == 0 || positions[i] != positions[n - 1])
+                    positions[n++] = positions[i];
+            }
+            return n == positions.length ? positions : Arrays.copyOf(positions, n);
+        }
+
+        /**
+         * 查找前缀区间，优先使用缓存，并在上一级前缀的区间内缩小查找范围
+         */
+        private int[] lookup(String prefix) {
+            String key = prefix.toLowerCase(Locale.US);
+            int[] range = rangeCache.get(key);
+            if(range != null)
+                return range;
+            int lo = 0, hi = entryWords.length;
+            for(int end = key.length() - 1; end > 0; end--) {
+                int[] parent = rangeCache.get(key.substring(0, end));
+                if(parent != null) {
+                    lo = parent[0];
+                    hi = parent[1];
+                    break;
+                }
+            }
+            range = findRange(prefix, lo, hi);
+            rangeCache.put(key, range);
+            return range;
+        }
+
+        /**
+         * 在[lo, hi)内查找以prefix开头的索引项区间
+         * @return  {start, end}
+         */
+        private int[] findRange(String prefix, int lo, int hi) {
+            //第一个不小于prefix的位置
+            int left = lo, right = hi;
+            while(left < right) {
+                int mid = (left + right) >>> 1;
+                if(compareIgnoreCase(words[entryWords[mid]], entryOffsets[mid], prefix, 0) < 0)
+                    left = mid + 1;
+                else
+                    right = mid;
+            }
+            int start = left;
+            //以prefix开头的索引项在有序数组中连续排列，继续查找区间的结尾
+            right = hi;
+            int length = prefix.length();
+            while(left < right) {
+                int mid = (left + right) >>> 1;
+                if(words[entryWords[mid]].regionMatches(true, entryOffsets[mid], prefix, 0, length))
+                    left = mid + 1;
+                else
+                    right = mid;
+            }
+            return new int[] {start, left};
+        }
+    }
+
+    /**
+     * 查询结果：所属索引及候选词位置
+     */
+    private static class Result {
+        final Index index;
+        final int[] positions;
+
+        Result(Index index, int[] positions) {
+            this.index = index;
+            this.positions = positions;
+        }
+    }
+
+    /**
+     * 前缀过滤器：在Filter的后台线程中执行查询，只发布与最新输入及原适配器当前内容一致的结果
+     */
+    private class PrefixFilter extends Filter {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            FilterResults results = new FilterResults();
+            if(isStale(constraint))
+                return results;
+            Index current = ensureIndex();
+            if(isStale(constraint))
+                return results;
+            int[] positions = current.search(constraint, maxResults);
+            results.values = new Result(current, positions);
+            results.count = positions.length;
+            return results;
+        }
+
+        @Override
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            lastConstraint = constraint;
+            //过期的查询及基于旧内容的结果不更新列表
+            if(results.values == null || isStale(constraint))
+                return;
+            Result result = (Result) results.values;
+            if(result.index.version != sourceVersion) {
+                getFilter().filter(constraint);
+                return;
+            }
+            resultIndex = result.index;
+            resultPositions = result.positions;
+            if(resultPositions.length > 0)
+                notifyDataSetChanged();
+            else
+                notifyDataSetInvalidated();
+        }
+    }
+}
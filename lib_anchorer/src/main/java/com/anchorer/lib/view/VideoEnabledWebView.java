@@ -13,6 +13,9 @@ import android.webkit.WebChromeClient;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 
+import com.anchorer.lib.utils.MimeTypeUtils;
+import com.anchorer.lib.utils.UrlView;
+
 /**
  * View: VideoEnabledWebView
  * Description: 自定义WebView，支持视频的全屏播放，配合VideoEnabledWebChromeClient使用。
@@ -23,6 +26,8 @@ import android.webkit.WebViewClient;
 public class VideoEnabledWebView extends WebView {
 	private VideoEnabledWebChromeClient videoEnabledWebChromeClient;
 	private boolean addedJavascriptInterface;
+	//只在主线程中使用，复用以避免每次导航创建对象
+	private final UrlView urlView = new UrlView();
 	
 	public class JavascriptInterface {
 		public void notifyVideoEnd() {
@@ -60,16 +65,11 @@ public class VideoEnabledWebView extends WebView {
 			@Override
 			public boolean shouldOverrideUrlLoading(WebView view, String url) {
 //				Log.d(LibConst.LOG_TEST, "shouldOverrideUrlLoading: " + url);
-				String lowerUrl = url.toLowerCase();
-				if(lowerUrl.endsWith(".mp4") || lowerUrl.endsWith(".flv")) {
+				//视频交给系统播放器打开
+				String videoType = MimeTypeUtils.getMimeTypeFromUrl(urlView.parse(url));
+				if(videoType != null && videoType.startsWith("video/")) {
 					Intent intent = new Intent(Intent.ACTION_VIEW);
-					String trend = "";
-					if(lowerUrl.endsWith(".mp4")) {
-						trend = "mp4";
-					} else if(lowerUrl.endsWith(".flv")) {
-						trend = "flv";
-					}
-					intent.setDataAndType(Uri.parse(url), "video/" + trend);
+					intent.setDataAndType(Uri.parse(url), videoType);
 					getContext().startActivity(intent);
 				}
 				return super.shouldOverrideUrlLoading(view, url);
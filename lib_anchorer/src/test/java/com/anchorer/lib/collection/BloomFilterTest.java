@@ -0,0 +1,110 @@
+package com.anchorer.lib.collection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test: BloomFilter
+ * 没有漏判，误判率接近设定值，序列化前后结果一致，超出int范围的位数被拒绝。
+ * No false negatives, a false positive rate near the requested one, identical answers after a
+ * serialization round trip, and bit counts beyond the int range rejected.
+ */
+public class BloomFilterTest {
+    private static final int COUNT = 5000;
+    private static final double FPP = 0.01;
+
+    @Test
+    public void noFalseNegatives() {
+        BloomFilter filter = filled();
+        for(int i = 0; i < COUNT; i++) {
+            assertTrue(filter.mightContain(packageName(i)));
+        }
+    }
+
+    @Test
+    public void falsePositiveRateNearRequested() {
+        BloomFilter filter = filled();
+        int falsePositives = 0;
+        int probes = 20000;
+        for(int i = COUNT; i < COUNT + probes; i++) {
+            if(filter.mightContain(packageName(i)))
+                falsePositives++;
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue("rate: " + rate, rate < FPP * 2);
+        assertTrue("expectedFpp: " + filter.expectedFpp(), filter.expectedFpp() < FPP * 2);
+    }
+
+    @Test
+    public void putReportsChanges() {
+        BloomFilter filter = BloomFilter.create(10, FPP);
+        assertTrue(filter.put("com.anchorer.example"));
+        assertFalse(filter.put("com.anchorer.example"));
+    }
+
+    @Test
+    public void roundTrip() {
+        BloomFilter filter = filled();
+        byte[] data = filter.toByteArray();
+        BloomFilter copy = BloomFilter.fromByteArray(data);
+        assertEquals(filter.getBitCount(), copy.getBitCount());
+        assertEquals(filter.getHashCount(), copy.getHashCount());
+        assertArrayEquals(data, copy.toByteArray());
+        for(int i = 0; i < COUNT * 2; i++) {
+            assertEquals(filter.mightContain(packageName(i)), copy.mightContain(packageName(i)));
+        }
+    }
+
+    @Test
+    public void rejectsCorruptedData() {
+        byte[] data = filled().toByteArray();
+        byte[] truncated = new byte[data.length - 8];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        byte[] badMagic = data.clone();
+        badMagic[0] = 0;
+        for(byte[] bad : new byte[][] {truncated, badMagic, new byte[4]}) {
+            try {
+                BloomFilter.fromByteArray(bad);
+                fail("accepted " + bad.length + " bytes");
+            } catch(IllegalArgumentException expected) {
+                //期望的异常
+            }
+        }
+    }
+
+    @Test
+    public void rejectsTooManyBits() {
+        try {
+            new BloomFilter(BloomFilter.MAX_BITS + 1, 1);
+            fail("accepted " + (BloomFilter.MAX_BITS + 1) + " bits");
+        } catch(IllegalArgumentException expected) {
+            //期望的异常
+        }
+        //所需位数超出long范围时也不能截断成一个很小的过滤器
+        for(double fpp : new double[] {1e-300, Double.MIN_VALUE}) {
+            try {
+                BloomFilter.create(Integer.MAX_VALUE, fpp);
+                fail("accepted fpp " + fpp);
+            } catch(IllegalArgumentException expected) {
+                //期望的异常
+            }
+        }
+    }
+
+    private static BloomFilter filled() {
+        BloomFilter filter = BloomFilter.create(COUNT, FPP);
+        for(int i = 0; i < COUNT; i++) {
+            filter.put(packageName(i));
+        }
+        return filter;
+    }
+
+    private static String packageName(int i) {
+        return "com.example.app" + i;
+    }
+}
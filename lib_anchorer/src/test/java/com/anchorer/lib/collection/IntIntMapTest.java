@@ -0,0 +1,91 @@
+package com.anchorer.lib.collection;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test: IntIntMap
+ * 随机增删改与HashMap对照，覆盖扩容和删除时的回移。
+ * Random puts and removes checked against HashMap, covering resizing and backward-shift deletion.
+ */
+public class IntIntMapTest {
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(12);
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        for(int i = 0; i < 100000; i++) {
+            //键集中在较小范围内，制造冲突和重复
+            int key = random.nextInt(2000) - 1000;
+            if(random.nextInt(3) == 0) {
+                Integer old = expected.remove(key);
+                assertEquals(old != null ? old : 0, map.remove(key));
+            } else {
+                int value = random.nextInt();
+                Integer old = expected.put(key, value);
+                assertEquals(old != null ? old : 0, map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for(int key = -1000; key < 1000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            Integer value = expected.get(key);
+            assertEquals(value != null ? value : -1, map.get(key, -1));
+        }
+    }
+
+    @Test
+    public void keysDifferingInHighBits() {
+        IntIntMap map = new IntIntMap();
+        for(int i = 0; i < 1000; i++) {
+            map.put(i << 20, i);
+        }
+        assertEquals(1000, map.size());
+        for(int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i << 20, -1));
+        }
+    }
+
+    @Test
+    public void slotCursorVisitsEveryEntry() {
+        IntIntMap map = new IntIntMap();
+        for(int i = 0; i < 100; i++) {
+            map.put(i * 7, i);
+        }
+        map.remove(14);
+        int[] visited = new int[map.size()];
+        int n = 0;
+        for(int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1)) {
+            assertEquals(map.keyAt(slot) / 7, map.valueAt(slot));
+            visited[n++] = map.keyAt(slot);
+        }
+        assertEquals(99, n);
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        Arrays.sort(visited);
+        assertArrayEquals(keys, visited);
+    }
+
+    @Test
+    public void clearEmptiesMap() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+        assertEquals(-1, map.nextSlot(0));
+        map.put(1, 3);
+        assertEquals(3, map.get(1, -1));
+    }
+}
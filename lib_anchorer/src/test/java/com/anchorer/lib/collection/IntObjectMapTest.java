@@ -0,0 +1,67 @@
+package com.anchorer.lib.collection;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test: IntObjectMap
+ * 随机增删改与HashMap对照，删除和清空后不再持有值的引用。
+ * Random puts and removes checked against HashMap; removed and cleared slots drop their values.
+ */
+public class IntObjectMapTest {
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(34);
+        IntObjectMap<String> map = new IntObjectMap<String>(4);
+        Map<Integer, String> expected = new HashMap<Integer, String>();
+        for(int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) * 1024;
+            if(random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = String.valueOf(random.nextInt());
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for(int i = 0; i < 2000; i++) {
+            assertEquals(expected.get(i * 1024), map.get(i * 1024));
+        }
+    }
+
+    @Test
+    public void removedSlotsReleaseValues() {
+        IntObjectMap<Object> map = new IntObjectMap<Object>();
+        for(int i = 0; i < 50; i++) {
+            map.put(i, new Object());
+        }
+        for(int i = 0; i < 50; i += 2) {
+            map.remove(i);
+        }
+        assertEquals(25, map.size());
+        assertUnusedSlotsEmpty(map);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertUnusedSlotsEmpty(map);
+    }
+
+    /**
+     * 未使用的槽位不应再引用值
+     */
+    private static void assertUnusedSlotsEmpty(IntObjectMap<?> map) {
+        Object[] values = (Object[]) map.valueArray();
+        for(int slot = 0; slot < map.used.length; slot++) {
+            if(!map.used[slot])
+                assertNull("slot " + slot, values[slot]);
+        }
+    }
+}
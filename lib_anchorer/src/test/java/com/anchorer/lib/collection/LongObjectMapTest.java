@@ -0,0 +1,44 @@
+package com.anchorer.lib.collection;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test: LongObjectMap
+ * 随机增删改与HashMap对照，包括只在高32位不同的键。
+ * Random puts and removes checked against HashMap, including keys differing only in the high 32 bits.
+ */
+public class LongObjectMapTest {
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(56);
+        LongObjectMap<Long> map = new LongObjectMap<Long>(4);
+        Map<Long, Long> expected = new HashMap<Long, Long>();
+        for(int i = 0; i < 100000; i++) {
+            long key = (long) random.nextInt(2000) << 32 | random.nextInt(2);
+            if(random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for(Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        long[] keys = map.keys();
+        assertEquals(expected.size(), keys.length);
+        for(long key : keys) {
+            assertTrue(expected.containsKey(key));
+        }
+    }
+}
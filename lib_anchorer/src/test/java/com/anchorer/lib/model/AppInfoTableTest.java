@@ -0,0 +1,170 @@
+package com.anchorer.lib.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test: AppInfoTable
+ * 排序与按比较器稳定排序的结果一致，过滤与逐行比较的结果一致。
+ * Sorting matches a stable comparator sort and filtering matches a row-by-row scan.
+ */
+public class AppInfoTableTest {
+    private static final String[] NAMES = {"Camera", "camera", "Browser", "Calendar", "browser", "Maps", "Clock", "maps"};
+    private static final int ROWS = 500;
+
+    private AppInfoTable table;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(99);
+        table = new AppInfoTable();
+        for(int i = 0; i < ROWS; i++) {
+            String name = NAMES[random.nextInt(NAMES.length)];
+            String versionName = random.nextInt(10) == 0 ? null : "1." + random.nextInt(5);
+            table.add("com.example." + name.toLowerCase() + random.nextInt(50), name, versionName,
+                    random.nextInt(20), 0);
+        }
+    }
+
+    @Test
+    public void sortByAppNameIgnoresCaseAndIsStable() {
+        assertSorted(AppInfoTable.COLUMN_APP_NAME, false);
+        assertSorted(AppInfoTable.COLUMN_APP_NAME, true);
+    }
+
+    @Test
+    public void sortByOtherColumns() {
+        assertSorted(AppInfoTable.COLUMN_PACKAGE_NAME, false);
+        assertSorted(AppInfoTable.COLUMN_VERSION_NAME, false);
+        assertSorted(AppInfoTable.COLUMN_VERSION_NAME, true);
+        assertSorted(AppInfoTable.COLUMN_VERSION_CODE, false);
+        assertSorted(AppInfoTable.COLUMN_VERSION_CODE, true);
+    }
+
+    @Test
+    public void sortAfterSharedPoolGrows() {
+        assertSorted(AppInfoTable.COLUMN_APP_NAME, false);
+        //另一个表向共享的字符串池添加了新字符串，缓存的名次需要重新计算
+        AppInfoTable other = new AppInfoTable(table.getStringPool(), 4);
+        other.add("com.example.other", "Bank", "0.9", 1, 0);
+        table.add("com.example.aardvark", "aardvark", "2.0", 3, 0);
+        List<Integer> rows = new ArrayList<Integer>();
+        for(int row = 0; row <= ROWS; row++) {
+            rows.add(row);
+        }
+        assertArrayEquals(expectedOrder(rows, AppInfoTable.COLUMN_APP_NAME, false),
+                table.sort(null, AppInfoTable.COLUMN_APP_NAME, false));
+    }
+
+    @Test
+    public void sortSubsetOfRows() {
+        int[] rows = table.filterVersionCode(null, 5, 14);
+        int[] sorted = table.sort(rows, AppInfoTable.COLUMN_APP_NAME, false);
+        assertArrayEquals(expectedOrder(toList(rows), AppInfoTable.COLUMN_APP_NAME, false), sorted);
+    }
+
+    @Test
+    public void filterMatchesScan() {
+        for(String query : new String[] {"ca", "CA", "browser", "x", ""}) {
+            List<Integer> expected = new ArrayList<Integer>();
+            for(int row = 0; row < ROWS; row++) {
+                if(table.getAppName(row).toLowerCase().contains(query.toLowerCase()))
+                    expected.add(row);
+            }
+            assertArrayEquals(query, toArray(expected), table.filter(null, AppInfoTable.COLUMN_APP_NAME, query));
+        }
+        //版本名称为null的行不匹配
+        int[] rows = table.filter(null, AppInfoTable.COLUMN_VERSION_NAME, "");
+        for(int row : rows) {
+            assertTrue(table.getVersionName(row) != null);
+        }
+    }
+
+    @Test
+    public void filterVersionCodeMatchesScan() {
+        int[] rows = table.filter(null, AppInfoTable.COLUMN_APP_NAME, "c");
+        List<Integer> expected = new ArrayList<Integer>();
+        for(int row : rows) {
+            if(table.getVersionCode(row) >= 3 && table.getVersionCode(row) <= 7)
+                expected.add(row);
+        }
+        assertArrayEquals(toArray(expected), table.filterVersionCode(rows, 3, 7));
+    }
+
+    @Test
+    public void findRowReturnsFirstRow() {
+        for(int row = 0; row < ROWS; row++) {
+            int found = table.findRow(table.getPackageName(row));
+            assertTrue(found <= row);
+            assertEquals(table.getPackageName(row), table.getPackageName(found));
+        }
+        assertEquals(-1, table.findRow("com.example.missing"));
+    }
+
+    private void assertSorted(int column, boolean descending) {
+        List<Integer> rows = new ArrayList<Integer>();
+        for(int row = 0; row < ROWS; row++) {
+            rows.add(row);
+        }
+        assertArrayEquals("column " + column + (descending ? " desc" : ""),
+                expectedOrder(rows, column, descending), table.sort(null, column, descending));
+    }
+
+    /**
+     * 用Collections.sort（稳定排序）计算期望的顺序，null排在升序的最前
+     */
+    private int[] expectedOrder(List<Integer> rows, final int column, final boolean descending) {
+        List<Integer> sorted = new ArrayList<Integer>(rows);
+        Collections.sort(sorted, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int result = compareRows(a, b, column);
+                return descending ? -result : result;
+            }
+        });
+        return toArray(sorted);
+    }
+
+    private int compareRows(int a, int b, int column) {
+        switch(column) {
+            case AppInfoTable.COLUMN_APP_NAME:
+                return String.CASE_INSENSITIVE_ORDER.compare(table.getAppName(a), table.getAppName(b));
+            case AppInfoTable.COLUMN_PACKAGE_NAME:
+                return table.getPackageName(a).compareTo(table.getPackageName(b));
+            case AppInfoTable.COLUMN_VERSION_NAME:
+                String x = table.getVersionName(a), y = table.getVersionName(b);
+                if(x == null || y == null)
+                    return x == null ? (y == null ? 0 : -1) : 1;
+                return x.compareTo(y);
+            default:
+                return table.getVersionCode(a) < table.getVersionCode(b) ? -1
+                        : (table.getVersionCode(a) == table.getVersionCode(b) ? 0 : 1);
+        }
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> list = new ArrayList<Integer>(values.length);
+        for(int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] values = new int[list.size()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = list.get(i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,110 @@
+package com.anchorer.lib.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test: CollationSorter
+ * 串行和并行排序的结果都与按Collator的稳定排序一致，排序键相同的元素保持原有顺序；系统语言变化后使用新语言的排序键。
+ * Serial and parallel sorting both match a stable Collator sort, keeping equal keys in their
+ * original order; the sort keys follow a change of the default locale.
+ */
+public class CollationSorterTest {
+    private static final String[] WORDS = {"相机", "浏览器", "日历", "apple", "Apple", "banana", "时钟", "地图", "zebra", null};
+
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.CHINA);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void serialSortIsStable() {
+        assertStableSort(new CollationSorter(64, Integer.MAX_VALUE, 1), 1000);
+    }
+
+    @Test
+    public void parallelSortIsStable() {
+        //阈值很小，任何规模都并行排序，包括不能均分的长度
+        assertStableSort(new CollationSorter(64, 2, 4), 1001);
+        assertStableSort(new CollationSorter(64, 2, 3), 7);
+    }
+
+    @Test
+    public void sortStringsPutsNullFirst() {
+        List<String> list = new ArrayList<String>(Arrays.asList("b", null, "a"));
+        new CollationSorter(16, Integer.MAX_VALUE, 1).sortStrings(list);
+        assertEquals(Arrays.asList(null, "a", "b"), list);
+    }
+
+    @Test
+    public void followsDefaultLocale() {
+        CollationSorter sorter = new CollationSorter(16, Integer.MAX_VALUE, 1);
+        assertArrayEquals(Collator.getInstance(Locale.CHINA).getCollationKey("相机").toByteArray(),
+                sorter.getSortKey("相机"));
+        Locale.setDefault(Locale.JAPAN);
+        assertArrayEquals(Collator.getInstance(Locale.JAPAN).getCollationKey("相机").toByteArray(),
+                sorter.getSortKey("相机"));
+    }
+
+    private static void assertStableSort(CollationSorter sorter, int size) {
+        Random random = new Random(size);
+        List<Item> items = new ArrayList<Item>(size);
+        for(int i = 0; i < size; i++) {
+            items.add(new Item(WORDS[random.nextInt(WORDS.length)], i));
+        }
+        final Collator collator = Collator.getInstance(Locale.CHINA);
+        List<Item> expected = new ArrayList<Item>(items);
+        //Collections.sort是稳定的
+        Collections.sort(expected, new Comparator<Item>() {
+            @Override
+            public int compare(Item a, Item b) {
+                if(a.name == null || b.name == null)
+                    return a.name == null ? (b.name == null ? 0 : -1) : 1;
+                return collator.compare(a.name, b.name);
+            }
+        });
+        sorter.sort(items, new CollationSorter.KeyExtractor<Item>() {
+            @Override
+            public String getKey(Item item) {
+                return item.name;
+            }
+        });
+        assertEquals(expected, items);
+    }
+
+    private static class Item {
+        final String name;
+        final int id;
+
+        Item(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return name + "#" + id;
+        }
+    }
+}
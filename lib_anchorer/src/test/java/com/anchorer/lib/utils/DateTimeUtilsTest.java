@@ -0,0 +1,120 @@
+package com.anchorer.lib.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test: DateTimeUtils
+ * 快速路径的格式化和解析结果与SimpleDateFormat一致，包括时区切换和快速路径范围之外的年份。
+ * The fast path formats and parses exactly like SimpleDateFormat, across time zone changes and
+ * for years outside the fast path range.
+ */
+public class DateTimeUtilsTest {
+    private static final String[] PATTERNS = {
+            "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd", "MM-dd HH:mm", "yyyyMMddHHmmssSSS", "yyyy/MM/dd HH:mm:ss.SSS"
+    };
+    private static final String[] TIME_ZONES = {
+            "UTC", "Asia/Shanghai", "America/New_York", "Australia/Lord_Howe", "Asia/Kathmandu"
+    };
+    //1583-01-01至9999-12-31
+    private static final long MIN_FAST = -12212553600000L;
+    private static final long MAX_FAST = 253402300799999L;
+
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void formatMatchesSimpleDateFormat() {
+        Random random = new Random(20150720);
+        for(String zone : TIME_ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            for(String pattern : PATTERNS) {
+                SimpleDateFormat expected = new SimpleDateFormat(pattern, Locale.getDefault());
+                for(int i = 0; i < 2000; i++) {
+                    long stamp = MIN_FAST + (long) (random.nextDouble() * (MAX_FAST - MIN_FAST));
+                    assertEquals(zone + " " + pattern + " " + stamp,
+                            expected.format(new Date(stamp)), DateTimeUtils.format(stamp, pattern));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void formatVariantsAgree() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        String pattern = "yyyy-MM-dd HH:mm:ss";
+        long[] stamps = {0, 1437379200000L, -1L, MIN_FAST, MAX_FAST};
+        String[] batch = DateTimeUtils.format(stamps, pattern);
+        char[] chars = new char[32];
+        for(int i = 0; i < stamps.length; i++) {
+            String single = DateTimeUtils.format(stamps[i], pattern);
+            assertEquals(single, batch[i]);
+            assertEquals(single, DateTimeUtils.format(stamps[i], pattern, new StringBuilder()).toString());
+            int length = DateTimeUtils.format(stamps[i], pattern, chars, 2);
+            assertEquals(single, new String(chars, 2, length));
+        }
+    }
+
+    @Test
+    public void parseMatchesSimpleDateFormat() throws Exception {
+        Random random = new Random(7);
+        for(String zone : TIME_ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            for(String pattern : PATTERNS) {
+                SimpleDateFormat expected = new SimpleDateFormat(pattern, Locale.getDefault());
+                for(int i = 0; i < 500; i++) {
+                    long stamp = MIN_FAST + (long) (random.nextDouble() * (MAX_FAST - MIN_FAST));
+                    String text = expected.format(new Date(stamp));
+                    assertEquals(zone + " " + text, expected.parse(text).getTime(), DateTimeUtils.parse(text, pattern));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void followsDefaultTimeZoneChange() {
+        long stamp = 1437379200000L;
+        String pattern = "yyyy-MM-dd HH:mm";
+        for(String zone : TIME_ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            SimpleDateFormat expected = new SimpleDateFormat(pattern, Locale.getDefault());
+            assertEquals(zone, expected.format(new Date(stamp)), DateTimeUtils.format(stamp, pattern));
+            //不走快速路径的格式使用线程缓存的SimpleDateFormat，同样要跟随时区变化
+            assertEquals(zone, new SimpleDateFormat("HH:mm z", Locale.getDefault()).format(new Date(stamp)),
+                    DateTimeUtils.format(stamp, "HH:mm z"));
+        }
+    }
+
+    @Test
+    public void yearsOutsideFastPathFallBack() throws Exception {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        String pattern = "yyyy-MM-dd HH:mm:ss";
+        SimpleDateFormat expected = new SimpleDateFormat(pattern, Locale.getDefault());
+        long[] stamps = {MIN_FAST - 1, -62135596800000L, -30000000000000L, MAX_FAST + 1, 400000000000000L};
+        char[] chars = new char[32];
+        for(long stamp : stamps) {
+            String text = expected.format(new Date(stamp));
+            assertEquals(text, DateTimeUtils.format(stamp, pattern));
+            assertEquals(text, new String(chars, 0, DateTimeUtils.format(stamp, pattern, chars, 0)));
+            assertEquals(text, expected.parse(text).getTime(), DateTimeUtils.parse(text, pattern));
+        }
+    }
+}
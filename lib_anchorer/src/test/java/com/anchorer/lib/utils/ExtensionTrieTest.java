@@ -0,0 +1,85 @@
+package com.anchorer.lib.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test: ExtensionTrie
+ * 查询不区分大小写，可查询字符序列的区域；无锁读取时并发添加不会导致读取出错。
+ * Lookups ignore ASCII case and work on regions; lock-free reads stay correct while other
+ * threads keep adding extensions.
+ */
+public class ExtensionTrieTest {
+
+    @Test
+    public void getIgnoresCase() {
+        ExtensionTrie<String> trie = new ExtensionTrie<String>();
+        trie.put("mp4", "video/mp4");
+        trie.put("MP3", "audio/mpeg");
+        assertEquals("video/mp4", trie.get("MP4"));
+        assertEquals("audio/mpeg", trie.get("mp3"));
+        assertNull(trie.get("mp"));
+        assertNull(trie.get("mp45"));
+        assertNull(trie.get(""));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    public void putOverridesWithoutGrowing() {
+        ExtensionTrie<String> trie = new ExtensionTrie<String>();
+        trie.put("flv", "video/flv");
+        trie.put("FLV", "video/x-flv");
+        assertEquals("video/x-flv", trie.get("flv"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void getRegion() {
+        ExtensionTrie<String> trie = new ExtensionTrie<String>();
+        trie.put("png", "image/png");
+        assertEquals("image/png", trie.get("icon.PNG?x=1", 5, 8));
+        assertNull(trie.get("icon.PNG?x=1", 5, 7));
+    }
+
+    @Test
+    public void readsRaceWithPuts() throws Exception {
+        final ExtensionTrie<String> trie = new ExtensionTrie<String>();
+        trie.put("a", "a");
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while(done.getCount() > 0) {
+                        for(char c = 'a'; c <= 'z'; c++) {
+                            String key = "a" + c;
+                            String value = trie.get(key);
+                            if(value != null && !value.equals(key))
+                                throw new AssertionError(key + " -> " + value);
+                        }
+                        if(!"a".equals(trie.get("a")))
+                            throw new AssertionError("lost a");
+                    }
+                } catch(Throwable t) {
+                    error.set(t);
+                }
+            }
+        });
+        reader.start();
+        for(int round = 0; round < 200; round++) {
+            String prefix = "a" + (char) ('a' + round % 26);
+            trie.put(prefix, prefix);
+            trie.put(prefix + round, prefix);
+        }
+        done.countDown();
+        reader.join();
+        if(error.get() != null)
+            throw new AssertionError(error.get());
+    }
+}
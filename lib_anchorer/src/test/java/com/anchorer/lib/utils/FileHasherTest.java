@@ -0,0 +1,154 @@
+package com.anchorer.lib.utils;
+
+import com.anchorer.lib.consts.LibConst;
+import com.anchorer.lib.model.FileDigest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test: FileHasher
+ * 块摘要与直接计算的摘要一致，修改、截断或追加后diff报告的块正确，只重新计算脏块的结果与完整计算一致，
+ * hashAll在文件数超过同时打开的上限时结果仍按输入顺序排列。
+ * Chunk digests match direct digests; diff reports the right chunks after an edit, truncation or
+ * append; re-hashing only the dirty chunks equals a full hash; hashAll keeps input order when there
+ * are more files than it keeps open.
+ */
+public class FileHasherTest {
+    private static final int CHUNK = 1024;
+
+    private final Random random = new Random(5);
+    private final List<File> files = new ArrayList<File>();
+    private FileHasher hasher;
+
+    @Before
+    public void setUp() {
+        hasher = new FileHasher(LibConst.DIGEST_MD5, CHUNK, 2);
+    }
+
+    @After
+    public void tearDown() {
+        hasher.shutdown();
+        for(File file : files) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void chunkDigestsMatchDirectDigests() throws Exception {
+        byte[] data = randomBytes(CHUNK * 3 + 100);
+        FileDigest digest = hasher.hash(write(data));
+        assertEquals(4, digest.getChunkCount());
+        assertEquals(data.length, digest.getLength());
+        for(int i = 0; i < 4; i++) {
+            MessageDigest md5 = MessageDigest.getInstance(LibConst.DIGEST_MD5);
+            md5.update(data, i * CHUNK, Math.min(CHUNK, data.length - i * CHUNK));
+            assertArrayEquals(md5.digest(), digest.getChunkDigest(i));
+        }
+    }
+
+    @Test
+    public void diffReportsChangedChunk() throws Exception {
+        byte[] data = randomBytes(CHUNK * 4);
+        File file = write(data);
+        FileDigest before = hasher.hash(file);
+        overwrite(file, CHUNK * 2 + 10, (byte) (data[CHUNK * 2 + 10] + 1));
+        assertArrayEquals(new int[] {2}, hasher.verify(file, before));
+        assertArrayEquals(new int[0], hasher.verify(write(data), before));
+    }
+
+    @Test
+    public void diffReportsTruncatedAndAppendedChunks() throws Exception {
+        byte[] data = randomBytes(CHUNK * 4);
+        FileDigest full = hasher.hash(write(data));
+        byte[] shorter = new byte[CHUNK * 2];
+        System.arraycopy(data, 0, shorter, 0, shorter.length);
+        FileDigest truncated = hasher.hash(write(shorter));
+        //期望摘要中多出的块也算作不同
+        assertArrayEquals(new int[] {2, 3}, FileHasher.diff(truncated, full));
+        assertArrayEquals(new int[] {2, 3}, FileHasher.diff(full, truncated));
+    }
+
+    @Test
+    public void rehashOfDirtyChunksEqualsFullHash() throws Exception {
+        byte[] data = randomBytes(CHUNK * 5 + 7);
+        File file = write(data);
+        FileDigest previous = hasher.hash(file);
+        overwrite(file, CHUNK + 3, (byte) (data[CHUNK + 3] ^ 0x55));
+        overwrite(file, CHUNK * 4, (byte) (data[CHUNK * 4] ^ 0x55));
+        FileDigest rehashed = hasher.rehash(file, previous, new int[] {1, 4});
+        FileDigest full = hasher.hash(file);
+        assertEquals(full, rehashed);
+        assertFalse(full.equals(previous));
+    }
+
+    @Test
+    public void rootDistinguishesLeavesFromNodes() throws Exception {
+        //两个块的文件与内容为两个块摘要的文件不能得到相同的根
+        byte[] data = randomBytes(CHUNK * 2);
+        FileDigest twoChunks = hasher.hash(write(data));
+        byte[] leaves = new byte[32];
+        System.arraycopy(twoChunks.getChunkDigest(0), 0, leaves, 0, 16);
+        System.arraycopy(twoChunks.getChunkDigest(1), 0, leaves, 16, 16);
+        FileDigest oneChunk = hasher.hash(write(leaves));
+        assertFalse(Arrays.equals(twoChunks.getRootDigest(), oneChunk.getRootDigest()));
+    }
+
+    @Test
+    public void hashAllKeepsInputOrder() throws Exception {
+        List<File> inputs = new ArrayList<File>();
+        for(int i = 0; i < 20; i++) {
+            inputs.add(write(randomBytes(random.nextInt(CHUNK * 3) + 1)));
+        }
+        List<FileDigest> digests = hasher.hashAll(inputs);
+        assertEquals(inputs.size(), digests.size());
+        for(int i = 0; i < inputs.size(); i++) {
+            assertEquals(inputs.get(i), digests.get(i).getFile());
+            assertTrue(digests.get(i).equals(hasher.hash(inputs.get(i))));
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private File write(byte[] data) throws IOException {
+        File file = File.createTempFile("hasher", ".bin");
+        files.add(file);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static void overwrite(File file, long position, byte value) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(position);
+            raf.write(value);
+        } finally {
+            raf.close();
+        }
+    }
+}
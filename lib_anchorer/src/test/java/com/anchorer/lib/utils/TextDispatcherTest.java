@@ -0,0 +1,113 @@
+package com.anchorer.lib.utils;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test: TextDispatcher
+ * 重复内容的过滤和被新输入取代的回调的取消。使用立即分发模式，回调在测试控制的Executor中执行。
+ * Distinct filtering and cancellation of superseded callbacks, in immediate mode with an executor
+ * driven by the test.
+ */
+public class TextDispatcherTest {
+    private final List<String> dispatched = new ArrayList<String>();
+    private final List<Runnable> queued = new ArrayList<Runnable>();
+    private TextDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new TextDispatcher(new TextDispatcher.OnTextDispatchListener() {
+            @Override
+            public void onTextDispatch(View v, String text) {
+                dispatched.add(text);
+            }
+        });
+        dispatcher.setMode(TextDispatcher.MODE_IMMEDIATE, 0);
+    }
+
+    @Test
+    public void distinctUntilChangedDropsRepeats() {
+        dispatch("a", "a", "ab", "ab", "a");
+        assertEquals(Arrays.asList("a", "ab", "a"), dispatched);
+    }
+
+    @Test
+    public void repeatsDispatchedWhenNotDistinct() {
+        dispatcher.setDistinctUntilChanged(false);
+        dispatch("a", "a");
+        assertEquals(Arrays.asList("a", "a"), dispatched);
+    }
+
+    @Test
+    public void supersededCallbackIsDropped() {
+        useQueuedExecutor();
+        dispatch("a", "ab", "abc");
+        runQueued();
+        assertEquals(Arrays.asList("abc"), dispatched);
+    }
+
+    @Test
+    public void cancelDropsQueuedCallback() {
+        useQueuedExecutor();
+        dispatch("a");
+        dispatcher.cancel();
+        runQueued();
+        assertEquals(0, dispatched.size());
+    }
+
+    @Test
+    public void droppedCallbackDoesNotCountAsDispatched() {
+        useQueuedExecutor();
+        dispatch("a");
+        runQueued();
+        //"ab"被取消，从未回调，再次输入"ab"时仍需分发
+        dispatch("ab");
+        dispatcher.cancel();
+        runQueued();
+        dispatch("ab");
+        runQueued();
+        assertEquals(Arrays.asList("a", "ab"), dispatched);
+    }
+
+    @Test
+    public void repeatOfDeliveredTextIsDropped() {
+        useQueuedExecutor();
+        dispatch("a");
+        runQueued();
+        dispatch("a");
+        runQueued();
+        assertEquals(Arrays.asList("a"), dispatched);
+    }
+
+    private void dispatch(String... texts) {
+        for(String text : texts) {
+            dispatcher.dispatch(null, text);
+        }
+    }
+
+    private void useQueuedExecutor() {
+        dispatcher.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        });
+    }
+
+    private void runQueued() {
+        List<Runnable> tasks = new ArrayList<Runnable>(queued);
+        queued.clear();
+        for(Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.anchorer.lib.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test: UnicodeEscaper
+ * 转义结果可以还原，包括代理对；流式接口在转义序列跨越读取边界时结果不变；StringToUnicode保持不补零的格式。
+ * Escaped text unescapes back, surrogate pairs included; the streaming variants give the same result
+ * when a sequence is split across reads; StringToUnicode keeps its unpadded format.
+ */
+public class UnicodeEscaperTest {
+    private static final String TEXT = "a\\b 中文 😀 \\u12 end";
+
+    @Test
+    public void escapePadsToFourDigits() {
+        assertEquals("\\u0061\\u4e2d", UnicodeEscaper.escape("a中", true));
+        assertEquals("a\\u4e2d", UnicodeEscaper.escape("a中", false));
+    }
+
+    @Test
+    public void escapedTextUnescapesBack() {
+        assertEquals(TEXT, UnicodeEscaper.unescape(UnicodeEscaper.escape(TEXT, true)));
+        assertEquals(TEXT, UnicodeEscaper.unescape(UnicodeEscaper.escape(TEXT, false)));
+    }
+
+    @Test
+    public void unescapeKeepsIncompleteSequences() {
+        assertEquals("\\u12 \\uzzzz \\", UnicodeEscaper.unescape("\\u12 \\uzzzz \\"));
+        assertEquals("A\\uD", UnicodeEscaper.unescape("\\u0041\\uD"));
+    }
+
+    @Test
+    public void unescapeReturnsInputWithoutSequences() {
+        String str = "plain text";
+        assertSame(str, UnicodeEscaper.unescape(str));
+    }
+
+    @Test
+    public void streamsMatchStringVersions() throws IOException {
+        String escaped = UnicodeEscaper.escape(TEXT, false) + "\\u00";
+        StringWriter out = new StringWriter();
+        UnicodeEscaper.escape(new StringReader(TEXT), out, false);
+        assertEquals(UnicodeEscaper.escape(TEXT, false), out.toString());
+
+        //每次只读一个字符，所有转义序列都跨越读取边界
+        out = new StringWriter();
+        UnicodeEscaper.unescape(new OneCharReader(escaped), out);
+        assertEquals(UnicodeEscaper.unescape(escaped), out.toString());
+    }
+
+    @Test
+    public void stringToUnicodeIsUnpadded() {
+        assertEquals("\\u61\\u4e2d", EncodeUtils.StringToUnicode("a中"));
+        assertEquals("a中", EncodeUtils.UnicodeToString("a\\u4e2d"));
+    }
+
+    private static class OneCharReader extends Reader {
+        private final Reader in;
+
+        OneCharReader(String str) {
+            in = new StringReader(str);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return in.read(buffer, offset, Math.min(1, length));
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
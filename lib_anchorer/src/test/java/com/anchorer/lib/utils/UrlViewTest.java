@@ -0,0 +1,68 @@
+package com.anchorer.lib.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test: UrlView
+ * 各部分的解析结果与URL语法一致，同一实例反复解析时不残留之前的结果，MIME类型按扩展名查询。
+ * Each part parses as the URL syntax says, a reused instance keeps nothing from the previous URL,
+ * and MIME types resolve from the extension.
+ */
+public class UrlViewTest {
+
+    @Test
+    public void parsesAllParts() {
+        UrlView url = new UrlView("HTTP://user:pw@Example.com:8080/dir/Movie.MP4?a=b.flv#frag.png");
+        assertEquals("HTTP", url.getScheme().toString());
+        assertTrue(url.schemeEquals("http"));
+        assertEquals("Example.com", url.getHost().toString());
+        assertEquals("/dir/Movie.MP4", url.getPath().toString());
+        assertEquals("MP4", url.getExtension().toString());
+        assertTrue(url.extensionEquals("mp4"));
+        assertEquals("a=b.flv", url.getQuery().toString());
+        assertEquals("frag.png", url.getFragment().toString());
+    }
+
+    @Test
+    public void parsesIpv6Host() {
+        UrlView url = new UrlView("http://[::1]:80/index.html");
+        assertEquals("[::1]", url.getHost().toString());
+        assertEquals("html", url.getExtension().toString());
+    }
+
+    @Test
+    public void missingPartsAreNull() {
+        UrlView url = new UrlView("/dir.d/file");
+        assertNull(url.getScheme());
+        assertNull(url.getHost());
+        assertNull(url.getExtension());
+        assertNull(url.getQuery());
+        assertNull(url.getFragment());
+        assertFalse(url.extensionEquals("d"));
+    }
+
+    @Test
+    public void reparseReplacesPreviousResult() {
+        UrlView url = new UrlView("https://example.com/a.mp4?x#y");
+        url.parse("file.txt");
+        assertNull(url.getScheme());
+        assertNull(url.getHost());
+        assertNull(url.getQuery());
+        assertNull(url.getFragment());
+        assertEquals("file.txt", url.getPath().toString());
+        assertEquals("txt", url.getExtension().toString());
+    }
+
+    @Test
+    public void resolvesMimeType() {
+        UrlView url = new UrlView();
+        assertEquals("video/mp4", MimeTypeUtils.getMimeTypeFromUrl(url.parse("http://a.com/v.Mp4?t=1.png")));
+        assertNull(MimeTypeUtils.getMimeTypeFromUrl(url.parse("http://a.com/v.unknown")));
+        assertNull(MimeTypeUtils.getMimeTypeFromUrl(url.parse("http://a.com/path.d/v")));
+    }
+}